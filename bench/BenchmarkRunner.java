@@ -0,0 +1,73 @@
+import java.util.function.LongSupplier;
+
+// a small benchmark harness in the style of jmh. each benchmark is warmed up for
+// a few timed iterations so the jit has settled, then measured for a few more.
+// every operation returns a number that is folded into a volatile sink so the
+// jit cant throw the work away. prints average ns per operation and the spread
+// between iterations
+//
+// settings (system properties):
+//   bench.warmup      warmup iterations (default 5)
+//   bench.iterations  measured iterations (default 5)
+//   bench.time        milliseconds per iteration (default 1000)
+public class BenchmarkRunner {
+	private final int warmupIterations = Integer.getInteger("bench.warmup", 5);
+	private final int measureIterations = Integer.getInteger("bench.iterations", 5);
+	private final long iterationNanos = Long.getLong("bench.time", 1000L) * 1_000_000L;
+
+	// results go here so the work cant be optimized away
+	private static volatile long sink;
+
+	public BenchmarkRunner() {
+		System.out.printf("# warmup %d x %d ms, measure %d x %d ms%n", warmupIterations, iterationNanos / 1_000_000,
+				measureIterations, iterationNanos / 1_000_000);
+		System.out.printf("%-28s %-36s %14s %12s%n", "Benchmark", "Params", "ns/op", "error");
+	}
+
+	/**
+	 * runs one benchmark and prints its result line
+	 * @param name what is being measured
+	 * @param params the parameter values used, just for the printout
+	 * @param operation one call does one operation
+	 */
+	public void run(String name, String params, LongSupplier operation) {
+		for (int i = 0; i < warmupIterations; i++)
+			iteration(operation);
+
+		double[] nanosPerOp = new double[measureIterations];
+		for (int i = 0; i < measureIterations; i++)
+			nanosPerOp[i] = iteration(operation);
+
+		double mean = 0;
+		for (double v : nanosPerOp)
+			mean += v;
+		mean /= nanosPerOp.length;
+		double variance = 0;
+		for (double v : nanosPerOp)
+			variance += (v - mean) * (v - mean);
+		double stdDev = nanosPerOp.length > 1 ? Math.sqrt(variance / (nanosPerOp.length - 1)) : 0;
+
+		System.out.printf("%-28s %-36s %14.1f %12.1f%n", name, params, mean, stdDev);
+	}
+
+	/**
+	 * runs the operation over and over for one iteration
+	 * @return average nanoseconds per operation
+	 */
+	private double iteration(LongSupplier operation) {
+		long ops = 0;
+		long result = 0;
+		long start = System.nanoTime();
+		long end = start + iterationNanos;
+		long now;
+		do {
+			// check the clock every few calls so timing doesnt dominate tiny benchmarks
+			for (int i = 0; i < 16; i++)
+				result += operation.getAsLong();
+			ops += 16;
+			now = System.nanoTime();
+		} while (now < end);
+		sink += result;
+		return (double) (now - start) / ops;
+	}
+}
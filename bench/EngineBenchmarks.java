@@ -0,0 +1,377 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// benchmarks for the hot parts of the engine. every benchmark runs once for each
+// combination of its parameters and uses fixed seeds so runs can be compared
+// before and after a change
+//
+// usage: bench/run.sh [filter=name] [mapSize=20,40,80] [enemies=8,64] [bullets=100,1000]
+public class EngineBenchmarks {
+	private static final int TILE_SIZE = 40;
+	private static final long SEED = 12345L;
+
+	private static int[] mapSizes = { 20, 40, 80 };
+	private static int[] enemyCounts = { 8, 64 };
+	private static int[] bulletCounts = { 100, 1000 };
+	private static String filter = "";
+
+	public static void main(String[] args) {
+		for (String arg : args) {
+			String[] parts = arg.split("=", 2);
+			if (parts.length != 2)
+				throw new IllegalArgumentException("expected name=value but got " + arg);
+			switch (parts[0]) {
+			case "filter" -> filter = parts[1];
+			case "mapSize" -> mapSizes = parseInts(parts[1]);
+			case "enemies" -> enemyCounts = parseInts(parts[1]);
+			case "bullets" -> bulletCounts = parseInts(parts[1]);
+			default -> throw new IllegalArgumentException("unknown parameter " + parts[0]);
+			}
+		}
+
+		BenchmarkRunner runner = new BenchmarkRunner();
+		for (int mapSize : mapSizes) {
+			if (selected("floorGenerate"))
+				floorGenerate(runner, mapSize);
+			if (selected("hasLineOfSight"))
+				hasLineOfSight(runner, mapSize);
+			if (selected("navGraph"))
+				navGraph(runner, mapSize);
+			if (selected("flowField"))
+				flowField(runner, mapSize);
+			if (selected("floorDraw"))
+				floorDraw(runner, mapSize);
+			for (int enemies : enemyCounts) {
+				if (selected("canSee")) {
+					canSee(runner, mapSize, enemies, false);
+					canSee(runner, mapSize, enemies, true);
+				}
+				if (selected("enemyUpdate"))
+					enemyUpdate(runner, mapSize, enemies);
+				if (selected("enemyDraw"))
+					enemyDraw(runner, mapSize, enemies);
+				for (int bullets : bulletCounts) {
+					if (selected("bulletCollision"))
+						bulletCollision(runner, mapSize, enemies, bullets);
+				}
+			}
+		}
+		for (int bullets : bulletCounts) {
+			if (selected("bulletDraw"))
+				bulletDraw(runner, bullets);
+		}
+		for (int enemies : enemyCounts) {
+			for (int bullets : bulletCounts) {
+				if (selected("worldDraw")) {
+					worldDraw(runner, enemies, bullets, 0);
+					worldDraw(runner, enemies, bullets, 1);
+					worldDraw(runner, enemies, bullets, 4);
+				}
+			}
+		}
+	}
+
+	private static boolean selected(String name) {
+		return name.contains(filter);
+	}
+
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Integer.parseInt(parts[i].trim());
+		return values;
+	}
+
+	/**
+	 * building a whole floor from its seed including its enemies
+	 */
+	private static void floorGenerate(BenchmarkRunner runner, int mapSize) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		runner.run("floorGenerate", "mapSize=" + mapSize, () -> {
+			floor.enemies.clear();
+			floor.generate();
+			return floor.getStartX();
+		});
+	}
+
+	/**
+	 * line of sight between random pairs of floor tiles
+	 */
+	private static void hasLineOfSight(BenchmarkRunner runner, int mapSize) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		Random rand = new Random(SEED);
+		int pairs = 1024;
+		int[] coords = new int[pairs * 4];
+		for (int i = 0; i < coords.length; i++)
+			coords[i] = rand.nextInt(mapSize - 2) + 1;
+		int[] next = { 0 };
+		runner.run("hasLineOfSight", "mapSize=" + mapSize, () -> {
+			int i = next[0];
+			next[0] = (i + 4) % coords.length;
+			return floor.hasLineOfSight(coords[i], coords[i + 1], coords[i + 2], coords[i + 3]) ? 1 : 0;
+		});
+	}
+
+	/**
+	 * building the patrol route graph, which happens once per floor generate
+	 */
+	private static void navGraph(BenchmarkRunner runner, int mapSize) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		NavGraph graph = floor.getNavGraph();
+		runner.run("navGraph", "mapSize=" + mapSize, () -> {
+			graph.build();
+			return graph.nodeCount();
+		});
+	}
+
+	/**
+	 * working out the flow field again for a player that moved to a new tile.
+	 * this is the whole cost of chasing since reading the field is one lookup
+	 */
+	private static void flowField(BenchmarkRunner runner, int mapSize) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		Random rand = new Random(SEED);
+		int[][] targets = new int[64][];
+		for (int i = 0; i < targets.length; i++)
+			targets[i] = randomFloorTile(floor, rand);
+		int[] from = randomFloorTile(floor, rand);
+		int[] next = { 0 };
+		runner.run("flowField", "mapSize=" + mapSize, () -> {
+			int[] target = targets[next[0]++ % targets.length];
+			return floor.nextStepTowards(from[0], from[1], target[0], target[1]);
+		});
+	}
+
+	/**
+	 * the line of sight questions one tick of enemy ai asks. every enemy asks
+	 * twice about the player tile and the player moves to a new tile every few
+	 * ticks
+	 */
+	private static void canSee(BenchmarkRunner runner, int mapSize, int enemyCount, boolean shadowcast) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		LineOfSight sight = new LineOfSight(floor, mapSize, mapSize, shadowcast);
+		Random rand = new Random(SEED);
+		int[][] enemyTiles = new int[enemyCount][];
+		for (int i = 0; i < enemyCount; i++)
+			enemyTiles[i] = randomFloorTile(floor, rand);
+		int[][] playerTiles = new int[64][];
+		for (int i = 0; i < playerTiles.length; i++)
+			playerTiles[i] = randomFloorTile(floor, rand);
+		int ticksPerTile = 8;
+		int[] tick = { 0 };
+		runner.run("canSee", "mapSize=" + mapSize + " enemies=" + enemyCount + " shadowcast=" + shadowcast, () -> {
+			int[] player = playerTiles[tick[0]++ / ticksPerTile % playerTiles.length];
+			int seen = 0;
+			for (int[] enemy : enemyTiles) {
+				if (sight.canSee(enemy[0], enemy[1], player[0], player[1]))
+					seen++;
+				if (sight.canSee(enemy[0], enemy[1], player[0], player[1]))
+					seen++;
+			}
+			return seen;
+		});
+	}
+
+	/**
+	 * one tick of ai and movement for every enemy on a floor
+	 */
+	private static void enemyUpdate(BenchmarkRunner runner, int mapSize, int enemyCount) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		placeEnemies(floor, enemyCount, new Random(SEED));
+		Player player = new Player(floor.getStartX() * TILE_SIZE + TILE_SIZE / 2.0,
+				floor.getStartY() * TILE_SIZE + TILE_SIZE / 2.0);
+		BulletPool bullets = new BulletPool(4096);
+		GameClock clock = new GameClock(60);
+		runner.run("enemyUpdate", "mapSize=" + mapSize + " enemies=" + enemyCount, () -> {
+			bullets.clear();
+			clock.advance();
+			for (Enemy enemy : floor.enemies)
+				enemy.update(player, floor, TILE_SIZE, bullets, clock.millis());
+			return bullets.size();
+		});
+	}
+
+	/**
+	 * one tick of bullet movement and collision against walls enemies and the
+	 * player. the same bullets are put back before every operation
+	 */
+	private static void bulletCollision(BenchmarkRunner runner, int mapSize, int enemyCount, int bulletCount) {
+		GameWorld world = new GameWorld(mapSize, mapSize, TILE_SIZE, SEED);
+		world.startLevel(1, null);
+		Floor floor = world.getCurrentFloor();
+		Random rand = new Random(SEED);
+		placeEnemies(floor, enemyCount, rand);
+
+		// pick the bullets once and remember where they started
+		double[] startX = new double[bulletCount];
+		double[] startY = new double[bulletCount];
+		double[] angle = new double[bulletCount];
+		boolean[] isPlayer = new boolean[bulletCount];
+		for (int i = 0; i < bulletCount; i++) {
+			int[] tile = randomFloorTile(floor, rand);
+			startX[i] = tile[0] * TILE_SIZE + rand.nextDouble() * TILE_SIZE;
+			startY[i] = tile[1] * TILE_SIZE + rand.nextDouble() * TILE_SIZE;
+			angle[i] = rand.nextDouble() * 2 * Math.PI;
+			isPlayer[i] = rand.nextBoolean();
+		}
+		int[] enemyHealth = new int[floor.enemies.size()];
+		for (int i = 0; i < enemyHealth.length; i++)
+			enemyHealth[i] = floor.enemies.get(i).health;
+
+		BulletPool bullets = world.getBullets();
+		Player player = world.getPlayer();
+		runner.run("bulletCollision", "mapSize=" + mapSize + " enemies=" + enemyCount + " bullets=" + bulletCount,
+				() -> {
+					// put everything back the way it was
+					bullets.clear();
+					for (int i = 0; i < bulletCount; i++)
+						bullets.spawn(startX[i], startY[i], angle[i], isPlayer[i]);
+					for (int i = 0; i < enemyHealth.length; i++)
+						floor.enemies.get(i).health = enemyHealth[i];
+					player.health = player.maxHealth;
+					player.isInvincible = false;
+
+					world.updateBullets(floor);
+					return bullets.size();
+				});
+	}
+
+	/**
+	 * drawing every tile of a floor into an offscreen image
+	 */
+	private static void floorDraw(BenchmarkRunner runner, int mapSize) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		BufferedImage target = new BufferedImage(mapSize * TILE_SIZE, mapSize * TILE_SIZE,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = target.createGraphics();
+		runner.run("floorDraw", "mapSize=" + mapSize, () -> {
+			floor.draw(g2, TILE_SIZE);
+			return target.getRGB(0, 0);
+		});
+		g2.dispose();
+	}
+
+	/**
+	 * drawing every enemy on a floor rotated to a new angle each time, the way
+	 * the game draws them
+	 */
+	private static void enemyDraw(BenchmarkRunner runner, int mapSize, int enemyCount) {
+		Floor floor = new Floor(mapSize, mapSize, 3, TILE_SIZE, SEED);
+		placeEnemies(floor, enemyCount, new Random(SEED));
+		BufferedImage target = new BufferedImage(mapSize * TILE_SIZE, mapSize * TILE_SIZE,
+				BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = target.createGraphics();
+		double[] angle = { 0 };
+		runner.run("enemyDraw", "mapSize=" + mapSize + " enemies=" + enemyCount, () -> {
+			angle[0] += 0.05;
+			for (Enemy enemy : floor.enemies)
+				Enemy.draw(g2, enemy.getImage(), enemy.x, enemy.y, angle[0], 1.0, 32, 32);
+			return target.getRGB(0, 0);
+		});
+		g2.dispose();
+	}
+
+	/**
+	 * drawing a screen full of bullets with antialiasing on like the game does
+	 */
+	private static void bulletDraw(BenchmarkRunner runner, int bulletCount) {
+		int width = 1280, height = 720;
+		Random rand = new Random(SEED);
+		RenderSnapshot snap = new RenderSnapshot();
+		snap.ensureBulletCapacity(bulletCount);
+		for (int i = 0; i < bulletCount; i++) {
+			snap.bulletX[i] = snap.bulletPrevX[i] = rand.nextDouble() * width;
+			snap.bulletY[i] = snap.bulletPrevY[i] = rand.nextDouble() * height;
+			snap.bulletIsPlayer[i] = rand.nextBoolean();
+		}
+		snap.bulletCount = bulletCount;
+		Viewport viewport = new Viewport();
+		viewport.set(0, 0, width, height);
+		BulletRenderer renderer = new BulletRenderer();
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = target.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		runner.run("bulletDraw", "bullets=" + bulletCount, () -> {
+			renderer.draw(g2, snap, 1.0, viewport);
+			return target.getRGB(0, 0);
+		});
+		g2.dispose();
+	}
+
+	/**
+	 * one frame of the world on a 1280x720 screen: floor enemies player and
+	 * bullets. threads 0 draws with java2d, otherwise the software renderer with
+	 * that many threads
+	 */
+	private static void worldDraw(BenchmarkRunner runner, int enemyCount, int bulletCount, int threads) {
+		int width = 1280, height = 720;
+		Floor floor = new Floor(40, 40, 3, TILE_SIZE, SEED);
+		Random rand = new Random(SEED);
+		placeEnemies(floor, enemyCount, rand);
+		RenderSnapshot snap = new RenderSnapshot();
+		snap.floor = floor;
+		snap.ensureBulletCapacity(bulletCount);
+		for (int i = 0; i < bulletCount; i++) {
+			snap.bulletX[i] = snap.bulletPrevX[i] = 400 + rand.nextDouble() * width;
+			snap.bulletY[i] = snap.bulletPrevY[i] = 400 + rand.nextDouble() * height;
+			snap.bulletIsPlayer[i] = rand.nextBoolean();
+		}
+		snap.bulletCount = bulletCount;
+		Viewport viewport = new Viewport();
+		viewport.set(400, 400, width, height);
+		BulletRenderer bullets = new BulletRenderer();
+		SoftwareRenderer renderer = threads > 0 ? new SoftwareRenderer(width, height, threads) : null;
+		BufferedImage target = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D g2 = target.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		double[] angle = { 0 };
+		String params = "enemies=" + enemyCount + " bullets=" + bulletCount + " "
+				+ (threads > 0 ? "software x" + threads : "java2d");
+		runner.run("worldDraw", params, () -> {
+			angle[0] += 0.05;
+			if (renderer != null) {
+				Graphics2D frame = renderer.begin(g2);
+				renderer.translate(-400, -400);
+				renderer.drawImage(floor.getTileLayer(frame, TILE_SIZE), 0, 0);
+				for (Enemy enemy : floor.enemies)
+					Enemy.draw(renderer, frame, enemy.getImage(), enemy.x, enemy.y, angle[0], 1.0, 32, 32);
+				bullets.draw(renderer, frame, snap, 1.0, viewport);
+				renderer.present(g2);
+			} else {
+				g2.translate(-400, -400);
+				floor.draw(g2, TILE_SIZE, viewport);
+				for (Enemy enemy : floor.enemies)
+					Enemy.draw(g2, enemy.getImage(), enemy.x, enemy.y, angle[0], 1.0, 32, 32);
+				bullets.draw(g2, snap, 1.0, viewport);
+				g2.translate(400, 400);
+			}
+			return target.getRGB(0, 0);
+		});
+		g2.dispose();
+	}
+
+	/**
+	 * replaces the floors enemies with this many enemies on random floor tiles
+	 */
+	private static void placeEnemies(Floor floor, int count, Random rand) {
+		floor.enemies.clear();
+		for (int i = 0; i < count; i++) {
+			int[] tile = randomFloorTile(floor, rand);
+			Enemy.EnemyType type = rand.nextInt(4) == 0 ? Enemy.EnemyType.HEAVY : Enemy.EnemyType.NORMAL;
+			floor.enemies.add(new Enemy(tile[0] * TILE_SIZE + TILE_SIZE / 2.0, tile[1] * TILE_SIZE + TILE_SIZE / 2.0,
+					type));
+		}
+	}
+
+	private static int[] randomFloorTile(Floor floor, Random rand) {
+		while (true) {
+			int x = rand.nextInt(floor.WIDTH - 2) + 1;
+			int y = rand.nextInt(floor.HEIGHT - 2) + 1;
+			if (floor.getTile(x, y) == Floor.FLOOR)
+				return new int[] { x, y };
+		}
+	}
+}
@@ -0,0 +1,166 @@
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+
+// draws the same game scenes with java2d and with the software renderer and
+// compares the pixels. java2d is the reference picture so any change to the
+// software renderer can be checked against it. exits with 1 if any pixel is
+// further off than the allowed difference
+//
+// usage: build with bench/run.sh then
+//   java -Djava.awt.headless=true -cp bench/build RenderCheck [threads=1,4] [tolerance=1]
+public class RenderCheck {
+	private static final int WIDTH = 1280, HEIGHT = 720;
+	private static final int TILE_SIZE = 40;
+	private static final long SEED = 12345L;
+
+	public static void main(String[] args) {
+		int[] threadCounts = { 1, 4 };
+		int tolerance = 1;
+		for (String arg : args) {
+			String[] parts = arg.split("=", 2);
+			if (parts.length != 2)
+				throw new IllegalArgumentException("expected name=value but got " + arg);
+			switch (parts[0]) {
+			case "threads" -> {
+				String[] list = parts[1].split(",");
+				threadCounts = new int[list.length];
+				for (int i = 0; i < list.length; i++)
+					threadCounts[i] = Integer.parseInt(list[i].trim());
+			}
+			case "tolerance" -> tolerance = Integer.parseInt(parts[1]);
+			default -> throw new IllegalArgumentException("unknown parameter " + parts[0]);
+			}
+		}
+
+		boolean passed = true;
+		for (int scene = 0; scene < 4; scene++) {
+			RenderSnapshot snap = makeScene(scene);
+			int camX = -200 + scene * 170, camY = -100 + scene * 90;
+			BufferedImage reference = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+			Graphics2D g2 = screenGraphics(reference);
+			drawJava2D(g2, snap, camX, camY);
+			g2.dispose();
+			for (int threads : threadCounts) {
+				SoftwareRenderer renderer = new SoftwareRenderer(WIDTH, HEIGHT, threads);
+				BufferedImage result = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+				g2 = screenGraphics(result);
+				drawSoftware(renderer, g2, snap, camX, camY);
+				g2.dispose();
+				passed &= compare("scene " + scene + " threads " + threads, reference, result, tolerance);
+			}
+		}
+		System.out.println(passed ? "all scenes match" : "some scenes differ");
+		System.exit(passed ? 0 : 1);
+	}
+
+	private static Graphics2D screenGraphics(BufferedImage image) {
+		Graphics2D g2 = image.createGraphics();
+		// the game draws with antialiasing on
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		return g2;
+	}
+
+	/**
+	 * a floor with enemies bullets and the player at spots picked from the seed
+	 */
+	private static RenderSnapshot makeScene(int scene) {
+		Random rand = new Random(SEED + scene);
+		RenderSnapshot snap = new RenderSnapshot();
+		snap.floor = new Floor(30, 20, 3, TILE_SIZE, SEED + scene);
+		// hacked floors have a different tile color
+		if (scene % 2 == 1)
+			snap.floor.setComputerHacked(true);
+		Image enemyImage = AssetManager.getShared().getImage("enemy.png");
+		Image heavyImage = AssetManager.getShared().getImage("heavy.png");
+
+		int enemyCount = 40;
+		snap.ensureEnemyCapacity(enemyCount);
+		for (int i = 0; i < enemyCount; i++) {
+			snap.enemyX[i] = snap.enemyPrevX[i] = rand.nextDouble() * 30 * TILE_SIZE;
+			snap.enemyY[i] = snap.enemyPrevY[i] = rand.nextDouble() * 20 * TILE_SIZE;
+			snap.enemyAngle[i] = rand.nextDouble() * 2 * Math.PI;
+			snap.enemyHealth[i] = rand.nextBoolean() ? rand.nextDouble() : -1;
+			snap.enemyImage[i] = rand.nextInt(4) == 0 ? heavyImage : enemyImage;
+		}
+		snap.enemyCount = enemyCount;
+
+		int bulletCount = 500;
+		snap.ensureBulletCapacity(bulletCount);
+		for (int i = 0; i < bulletCount; i++) {
+			snap.bulletX[i] = snap.bulletPrevX[i] = rand.nextDouble() * 30 * TILE_SIZE;
+			snap.bulletY[i] = snap.bulletPrevY[i] = rand.nextDouble() * 20 * TILE_SIZE;
+			snap.bulletIsPlayer[i] = rand.nextBoolean();
+		}
+		snap.bulletCount = bulletCount;
+
+		snap.playerX = snap.playerPrevX = 15 * TILE_SIZE + scene * 7;
+		snap.playerY = snap.playerPrevY = 10 * TILE_SIZE + scene * 5;
+		snap.playerAngle = scene * 0.8;
+		snap.playerVisible = true;
+		// the last scene checks the box drawn when the player has no picture
+		snap.playerImage = scene == 3 ? null : AssetManager.getShared().getImage("1.png");
+		return snap;
+	}
+
+	/**
+	 * the world part of GamePanel.drawInGame through java2d
+	 */
+	private static void drawJava2D(Graphics2D g2, RenderSnapshot snap, int camX, int camY) {
+		Viewport viewport = new Viewport();
+		viewport.set(camX, camY, WIDTH, HEIGHT);
+		g2.setColor(Color.BLACK);
+		g2.fillRect(0, 0, WIDTH, HEIGHT);
+		g2.translate(-camX, -camY);
+		snap.floor.draw(g2, TILE_SIZE, viewport);
+		for (int i = 0; i < snap.enemyCount; i++)
+			Enemy.draw(g2, snap.enemyImage[i], snap.enemyX[i], snap.enemyY[i], snap.enemyAngle[i],
+					snap.enemyHealth[i], 32, 32);
+		Player.draw(g2, snap.playerImage, snap.playerX, snap.playerY, snap.playerAngle, 32, 32);
+		new BulletRenderer().draw(g2, snap, 1.0, viewport);
+	}
+
+	/**
+	 * the same scene through the software renderer
+	 */
+	private static void drawSoftware(SoftwareRenderer renderer, Graphics2D screen, RenderSnapshot snap, int camX,
+			int camY) {
+		Viewport viewport = new Viewport();
+		viewport.set(camX, camY, WIDTH, HEIGHT);
+		Graphics2D frame = renderer.begin(screen);
+		renderer.fillRect(0, 0, WIDTH, HEIGHT, 0);
+		renderer.translate(-camX, -camY);
+		renderer.drawImage(snap.floor.getTileLayer(frame, TILE_SIZE), 0, 0);
+		for (int i = 0; i < snap.enemyCount; i++)
+			Enemy.draw(renderer, frame, snap.enemyImage[i], snap.enemyX[i], snap.enemyY[i], snap.enemyAngle[i],
+					snap.enemyHealth[i], 32, 32);
+		Player.draw(renderer, frame, snap.playerImage, snap.playerX, snap.playerY, snap.playerAngle, 32, 32);
+		new BulletRenderer().draw(renderer, frame, snap, 1.0, viewport);
+		renderer.present(screen);
+	}
+
+	/**
+	 * prints how many pixels differ and by how much
+	 * @return true if no color channel is off by more than the tolerance
+	 */
+	private static boolean compare(String name, BufferedImage expected, BufferedImage actual, int tolerance) {
+		int differing = 0, worst = 0;
+		for (int y = 0; y < HEIGHT; y++) {
+			for (int x = 0; x < WIDTH; x++) {
+				int a = expected.getRGB(x, y), b = actual.getRGB(x, y);
+				if (a == b)
+					continue;
+				differing++;
+				for (int shift = 0; shift < 24; shift += 8)
+					worst = Math.max(worst, Math.abs(((a >> shift) & 0xff) - ((b >> shift) & 0xff)));
+			}
+		}
+		boolean ok = worst <= tolerance;
+		System.out.printf("%-22s %8d pixels differ, worst channel %3d  %s%n", name, differing, worst,
+				ok ? "ok" : "FAILED");
+		return ok;
+	}
+}
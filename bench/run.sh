@@ -0,0 +1,14 @@
+#!/bin/sh
+# builds the game and the benchmarks and runs them.
+# run from the project folder so the enemy pictures can be found:
+#   bench/run.sh [filter=name] [mapSize=20,40,80] [enemies=8,64] [bullets=100,1000]
+# change how long it runs with JAVA_OPTS, eg JAVA_OPTS="-Dbench.iterations=10"
+set -e
+cd "$(dirname "$0")/.."
+OUT=bench/build
+rm -rf "$OUT"
+mkdir -p "$OUT"
+javac -encoding UTF-8 -d "$OUT" src/*.java bench/*.java
+# fixed heap and one gc so numbers are comparable between runs
+exec java -Djava.awt.headless=true -Xms512m -Xmx512m -XX:+UseParallelGC $JAVA_OPTS \
+	-cp "$OUT" EngineBenchmarks "$@"
@@ -0,0 +1,95 @@
+import java.awt.*;
+import java.awt.image.BufferStrategy;
+import java.util.function.Consumer;
+
+// a canvas that the game loop draws on directly with a buffer strategy instead
+// of asking swing to repaint. in full screen exclusive mode the buffer strategy
+// flips pages when the graphics card supports it
+public class ActiveRenderCanvas extends Canvas {
+	// how many buffers to use. 2 means one on screen and one being drawn
+	private static final int BUFFER_COUNT = 2;
+
+	// the buffer strategy or null if it couldnt be made
+	private volatile BufferStrategy strategy;
+	// true if making a buffer strategy failed so we should fall back to swing
+	private volatile boolean failed = false;
+
+	public ActiveRenderCanvas(int width, int height) {
+		setPreferredSize(new Dimension(width, height));
+		setBackground(Color.BLACK);
+		// we draw everything ourselves so ignore paint messages from the system
+		setIgnoreRepaint(true);
+		setFocusable(true);
+	}
+
+	/**
+	 * makes the buffer strategy as soon as the canvas is on screen
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		createStrategy();
+	}
+
+	/**
+	 * tries to get a page flipping buffer strategy first and falls back to
+	 * whatever the system gives us
+	 */
+	private void createStrategy() {
+		try {
+			try {
+				BufferCapabilities flipping = new BufferCapabilities(new ImageCapabilities(true),
+						new ImageCapabilities(true), BufferCapabilities.FlipContents.UNDEFINED);
+				createBufferStrategy(BUFFER_COUNT, flipping);
+			} catch (AWTException e) {
+				// page flipping isnt available here
+				createBufferStrategy(BUFFER_COUNT);
+			}
+			strategy = getBufferStrategy();
+		} catch (RuntimeException e) {
+			// no buffer strategy at all. the panel will go back to swing painting
+			strategy = null;
+		}
+		if (strategy == null)
+			failed = true;
+	}
+
+	/**
+	 * @return true if active rendering cant work and swing painting should be used
+	 */
+	public boolean hasFailed() {
+		return failed;
+	}
+
+	/**
+	 * draws one frame straight to the screen. keeps trying while the video memory
+	 * behind the buffers gets lost or restored. frames can come from the game
+	 * loop and the event thread so only one is drawn at a time
+	 * @param painter draws the frame
+	 * @return false if the canvas isnt ready to draw on
+	 */
+	public synchronized boolean renderFrame(Consumer<Graphics2D> painter) {
+		BufferStrategy s = strategy;
+		if (s == null || !isDisplayable())
+			return false;
+		try {
+			do {
+				do {
+					Graphics2D g2 = (Graphics2D) s.getDrawGraphics();
+					try {
+						painter.accept(g2);
+					} finally {
+						g2.dispose();
+					}
+				} while (s.contentsRestored());
+				s.show();
+			} while (s.contentsLost());
+			// make sure the frame actually goes out now on systems that queue drawing
+			Toolkit.getDefaultToolkit().sync();
+			return true;
+		} catch (IllegalStateException e) {
+			// the canvas was removed while we were drawing
+			return false;
+		}
+	}
+}
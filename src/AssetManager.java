@@ -0,0 +1,136 @@
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+// loads every picture the game uses exactly once and hands the same image to
+// everyone who asks for it, so making enemies or restarting a level never reads
+// a file again. pictures can be loaded ahead of time on a background thread.
+// asking for a picture that is still loading waits for it instead of loading it
+// a second time. pictures that fail to load are remembered as null
+public class AssetManager {
+	private static final AssetManager SHARED = new AssetManager();
+
+	// pictures by their path. the future is done once the picture has loaded
+	private final ConcurrentHashMap<String, CompletableFuture<BufferedImage>> images = new ConcurrentHashMap<>();
+	// loads pictures in the background so the game can start without waiting
+	private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Asset Loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	// how many pictures were read and how long it took in total
+	private final AtomicInteger loadedCount = new AtomicInteger();
+	private final AtomicLong totalLoadNanos = new AtomicLong();
+
+	/**
+	 * @return the asset manager shared by the whole game
+	 */
+	public static AssetManager getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * gets a picture loading it now if nobody has asked for it before
+	 * @param path a resource path or a file path like "enemy.png"
+	 * @return the shared picture or null if it couldnt be loaded
+	 */
+	public BufferedImage getImage(String path) {
+		return request(path, false).join();
+	}
+
+	/**
+	 * starts loading pictures on the background thread. pictures that are
+	 * already loaded or loading are skipped
+	 */
+	public void preload(String... paths) {
+		for (String path : paths) {
+			if (path != null)
+				request(path, true);
+		}
+	}
+
+	/**
+	 * checks if a picture has finished loading without waiting for it
+	 */
+	public boolean isLoaded(String path) {
+		CompletableFuture<BufferedImage> future = images.get(path);
+		return future != null && future.isDone();
+	}
+
+	/**
+	 * finds the future for a picture making it if needed. only the caller that
+	 * makes the future does the loading
+	 */
+	private CompletableFuture<BufferedImage> request(String path, boolean inBackground) {
+		CompletableFuture<BufferedImage> future = images.get(path);
+		if (future != null)
+			return future;
+		CompletableFuture<BufferedImage> created = new CompletableFuture<>();
+		future = images.putIfAbsent(path, created);
+		if (future != null)
+			return future;
+		if (inBackground)
+			loader.execute(() -> loadInto(path, created));
+		else
+			loadInto(path, created);
+		return created;
+	}
+
+	/**
+	 * loads a picture and finishes its future. the future is always finished
+	 * even if loading throws so nobody waiting on it hangs forever
+	 */
+	private void loadInto(String path, CompletableFuture<BufferedImage> future) {
+		try {
+			future.complete(load(path));
+		} finally {
+			// does nothing if it was already finished above
+			future.complete(null);
+		}
+	}
+
+	/**
+	 * reads a picture from the game resources or if that fails from a file
+	 */
+	private BufferedImage load(String path) {
+		long start = System.nanoTime();
+		BufferedImage image = null;
+		try {
+			URL resource = AssetManager.class.getResource(path);
+			image = ImageIO.read(resource != null ? resource : new File(path).toURI().toURL());
+		} catch (IOException | RuntimeException e) {
+			// the picture couldnt be read or is broken. whoever uses it draws
+			// without it
+		}
+		long nanos = System.nanoTime() - start;
+		loadedCount.incrementAndGet();
+		totalLoadNanos.addAndGet(nanos);
+		if (Boolean.getBoolean("byterunner.logAssets"))
+			System.out.printf("loaded %s in %.1f ms on %s%s%n", path, nanos / 1e6, Thread.currentThread().getName(),
+					image == null ? " (failed)" : "");
+		return image;
+	}
+
+	/**
+	 * @return how many pictures have been read so far
+	 */
+	public int getLoadedCount() {
+		return loadedCount.get();
+	}
+
+	/**
+	 * @return how long reading all the pictures took added together
+	 */
+	public double getTotalLoadMillis() {
+		return totalLoadNanos.get() / 1e6;
+	}
+}
@@ -0,0 +1,115 @@
+// every bullet in flight kept in plain arrays, one array per value, instead of
+// one object per bullet. the live bullets are always packed at the front so a
+// loop over them is just 0 to size. removing a bullet moves the last one into
+// its place so nothing shifts. how far a bullet moves each tick and when it will
+// hit a wall are worked out once when it is fired, so moving it never has to
+// look at the map. the arrays are made once with a fixed size so firing and
+// removing bullets never makes garbage. when the pool is full new bullets are
+// just not fired
+public class BulletPool {
+	// bullet position now and last tick
+	final double[] x, y;
+	final double[] prevX, prevY;
+	// how far the bullet moves every tick
+	final double[] velocityX, velocityY;
+	// ticks left from where the bullet is now until it hits a wall
+	final double[] wallTime;
+	// is this a player bullet or enemy bullet
+	final boolean[] isPlayer;
+	// how many bullets are in flight
+	private int count;
+
+	// the floor the bullets fly through. without one they never hit a wall
+	private Floor floor;
+	private int tileSize;
+
+	/**
+	 * @param capacity the most bullets that can be in flight at once
+	 */
+	public BulletPool(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("capacity must be positive");
+		x = new double[capacity];
+		y = new double[capacity];
+		prevX = new double[capacity];
+		prevY = new double[capacity];
+		velocityX = new double[capacity];
+		velocityY = new double[capacity];
+		wallTime = new double[capacity];
+		isPlayer = new boolean[capacity];
+	}
+
+	/**
+	 * sets the floor the bullets fly through and works out again when every
+	 * bullet already in flight hits its walls
+	 */
+	public void setFloor(Floor floor, int tileSize) {
+		this.floor = floor;
+		this.tileSize = tileSize;
+		for (int i = 0; i < count; i++)
+			wallTime[i] = timeToWall(i);
+	}
+
+	/**
+	 * fires a bullet. player bullets are fast and enemy bullets are slow
+	 * @param angle the direction in radians
+	 * @return false if the pool is full and no bullet was fired
+	 */
+	public boolean spawn(double startX, double startY, double angle, boolean isPlayerBullet) {
+		if (count == x.length)
+			return false;
+		int i = count++;
+		double speed = isPlayerBullet ? Bullet.PLAYER_SPEED : Bullet.ENEMY_SPEED;
+		x[i] = startX;
+		y[i] = startY;
+		prevX[i] = startX;
+		prevY[i] = startY;
+		velocityX[i] = Math.cos(angle) * speed;
+		velocityY[i] = Math.sin(angle) * speed;
+		isPlayer[i] = isPlayerBullet;
+		wallTime[i] = timeToWall(i);
+		return true;
+	}
+
+	private double timeToWall(int i) {
+		if (floor == null)
+			return Double.POSITIVE_INFINITY;
+		return floor.timeToWall(x[i], y[i], velocityX[i], velocityY[i], tileSize);
+	}
+
+	/**
+	 * removes a bullet by moving the last bullet into its place. a loop that
+	 * removes bullet i should look at i again since it now holds another bullet
+	 */
+	public void remove(int i) {
+		int last = --count;
+		if (i == last)
+			return;
+		x[i] = x[last];
+		y[i] = y[last];
+		prevX[i] = prevX[last];
+		prevY[i] = prevY[last];
+		velocityX[i] = velocityX[last];
+		velocityY[i] = velocityY[last];
+		wallTime[i] = wallTime[last];
+		isPlayer[i] = isPlayer[last];
+	}
+
+	public void clear() {
+		count = 0;
+	}
+
+	/**
+	 * @return how many bullets are in flight
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * @return the most bullets that can be in flight at once
+	 */
+	public int capacity() {
+		return x.length;
+	}
+}
@@ -0,0 +1,96 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// draws all the bullets in a snapshot. each side has its dot drawn once with
+// antialiasing into a tiny image, and drawing a bullet is just copying that image
+// to a whole pixel, so no colors are set and no ovals are filled per bullet. the
+// player bullets are drawn in one go and then the enemy bullets, straight from
+// the snapshot arrays
+public class BulletRenderer {
+	// room around the dot for the soft antialiased edge
+	private static final int PAD = 1;
+
+	private BufferedImage playerDot, enemyDot;
+	// the screen settings the dots were made for
+	private GraphicsConfiguration paintedConfig;
+	private Object paintedAntialiasing;
+
+	/**
+	 * draws every bullet that can be seen blended between the last two ticks
+	 * @return how many bullets were drawn
+	 */
+	public int draw(Graphics2D g2, RenderSnapshot snap, double alpha, Viewport viewport) {
+		prepare(g2);
+		int drawn = drawSide(g2, null, snap, alpha, viewport, true, playerDot);
+		drawn += drawSide(g2, null, snap, alpha, viewport, false, enemyDot);
+		return drawn;
+	}
+
+	/**
+	 * same as the other draw but into the software renderer
+	 * @param target the graphics of the renderers frame. the dots are made to match it
+	 */
+	public int draw(SoftwareRenderer renderer, Graphics2D target, RenderSnapshot snap, double alpha,
+			Viewport viewport) {
+		prepare(target);
+		int drawn = drawSide(null, renderer, snap, alpha, viewport, true, playerDot);
+		drawn += drawSide(null, renderer, snap, alpha, viewport, false, enemyDot);
+		return drawn;
+	}
+
+	/**
+	 * draws the bullets of one side with the same dot image. exactly one of g2
+	 * and renderer is given
+	 */
+	private static int drawSide(Graphics2D g2, SoftwareRenderer renderer, RenderSnapshot snap, double alpha,
+			Viewport viewport, boolean isPlayer, BufferedImage dot) {
+		double[] bulletX = snap.bulletX, bulletY = snap.bulletY;
+		double[] bulletPrevX = snap.bulletPrevX, bulletPrevY = snap.bulletPrevY;
+		boolean[] bulletIsPlayer = snap.bulletIsPlayer;
+		int count = snap.bulletCount;
+		int drawn = 0;
+		for (int i = 0; i < count; i++) {
+			if (bulletIsPlayer[i] != isPlayer)
+				continue;
+			double x = bulletPrevX[i] + (bulletX[i] - bulletPrevX[i]) * alpha;
+			double y = bulletPrevY[i] + (bulletY[i] - bulletPrevY[i]) * alpha;
+			if (!viewport.contains(x, y, Bullet.SIZE))
+				continue;
+			// same corner Bullet.draw would fill the oval from
+			int left = (int) (x - Bullet.SIZE / 2.0) - PAD;
+			int top = (int) (y - Bullet.SIZE / 2.0) - PAD;
+			if (renderer != null)
+				renderer.drawImage(dot, left, top);
+			else
+				g2.drawImage(dot, left, top, null);
+			drawn++;
+		}
+		return drawn;
+	}
+
+	/**
+	 * makes the dots again if the screen or antialiasing setting changed
+	 */
+	private void prepare(Graphics2D target) {
+		GraphicsConfiguration config = target.getDeviceConfiguration();
+		Object antialiasing = target.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		if (playerDot != null && config == paintedConfig && antialiasing == paintedAntialiasing)
+			return;
+		paintedConfig = config;
+		paintedAntialiasing = antialiasing;
+		playerDot = makeDot(config, antialiasing, true);
+		enemyDot = makeDot(config, antialiasing, false);
+	}
+
+	private static BufferedImage makeDot(GraphicsConfiguration config, Object antialiasing, boolean isPlayer) {
+		int size = Bullet.SIZE + PAD * 2;
+		BufferedImage dot = config != null ? config.createCompatibleImage(size, size, Transparency.TRANSLUCENT)
+				: new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g2 = dot.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+		// the bullet itself says what it looks like
+		Bullet.draw(g2, PAD + Bullet.SIZE / 2.0, PAD + Bullet.SIZE / 2.0, isPlayer);
+		g2.dispose();
+		return dot;
+	}
+}
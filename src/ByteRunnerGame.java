@@ -12,17 +12,54 @@ public class ByteRunnerGame {
 
 		// create the main game panel
 		GamePanel panel = new GamePanel();
-		
-		// put the panel inside the window
-		window.setContentPane(panel);
-		// make window fit the panel size
-		window.pack();
-		// open window in center of screen
-		window.setLocationRelativeTo(null);
-		// show the window
-		window.setVisible(true);
+
+		// see if we should take over the whole screen
+		GraphicsDevice device = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice();
+		boolean fullScreen = Boolean.getBoolean("byterunner.fullScreen") && device.isFullScreenSupported();
+
+		if (fullScreen) {
+			// no title bar and keep the game centered on a black screen
+			window.setUndecorated(true);
+			JPanel background = new JPanel(new GridBagLayout());
+			background.setBackground(Color.BLACK);
+			background.add(panel);
+			window.setContentPane(background);
+			device.setFullScreenWindow(window);
+			useGameDisplayMode(device, panel.getPreferredSize());
+			window.validate();
+		} else {
+			// put the panel inside the window
+			window.setContentPane(panel);
+			// make window fit the panel size
+			window.pack();
+			// open window in center of screen
+			window.setLocationRelativeTo(null);
+			// show the window
+			window.setVisible(true);
+		}
 
 		// start the game
 		panel.startGameThread();
 	}
+
+	/**
+	 * switches the screen to the games resolution if the screen has a mode that
+	 * matches. otherwise the game is drawn in the middle of the current mode
+	 */
+	private static void useGameDisplayMode(GraphicsDevice device, Dimension size) {
+		if (!device.isDisplayChangeSupported())
+			return;
+		DisplayMode current = device.getDisplayMode();
+		for (DisplayMode mode : device.getDisplayModes()) {
+			if (mode.getWidth() == size.width && mode.getHeight() == size.height
+					&& mode.getBitDepth() == current.getBitDepth()) {
+				try {
+					device.setDisplayMode(mode);
+				} catch (IllegalArgumentException | UnsupportedOperationException e) {
+					// keep the current mode
+				}
+				return;
+			}
+		}
+	}
 }
\ No newline at end of file
@@ -0,0 +1,112 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.function.Consumer;
+
+// a full screen image of the parts of a screen that dont change. it is painted
+// once and then copied every frame. the caller passes a number describing what
+// the layer shows, like how many levels are unlocked, and the layer paints
+// itself again whenever that number changes. it also paints again if the
+// screen or the antialiasing setting changes
+public class CachedLayer {
+	private final int width, height;
+	// true if the layer has see through parts that go over other things
+	private final boolean translucent;
+	// draws the layer contents
+	private final Consumer<Graphics2D> painter;
+	// how big the layer is drawn compared to its size. the image is painted at
+	// that size so it can still be copied pixel for pixel
+	private double scale = 1.0;
+
+	private BufferedImage image;
+	// what the layer was painted with
+	private long paintedKey;
+	private GraphicsConfiguration paintedConfig;
+	private Object paintedAntialiasing;
+	private Object paintedTextAntialiasing;
+
+	/**
+	 * @param translucent true if things drawn under the layer should show through
+	 * @param painter paints the layer. it is given a clear image to draw on
+	 */
+	public CachedLayer(int width, int height, boolean translucent, Consumer<Graphics2D> painter) {
+		this.width = width;
+		this.height = height;
+		this.translucent = translucent;
+		this.painter = painter;
+	}
+
+	/**
+	 * draws the layer at 0 0 painting it again first if needed
+	 * @param key describes what the layer shows. paint again when it changes
+	 */
+	public void draw(Graphics2D target, long key) {
+		BufferedImage layer = getImage(target, key);
+		if (scale == 1.0) {
+			target.drawImage(layer, 0, 0, null);
+			return;
+		}
+		// the target is scaled by the same amount so undo it for a plain copy
+		target.scale(1 / scale, 1 / scale);
+		target.drawImage(layer, 0, 0, null);
+		target.scale(scale, scale);
+	}
+
+	/**
+	 * sets how big the layer is drawn. the target graphics should be scaled by
+	 * the same amount. the layer is painted again at the new size
+	 */
+	public void setScale(double scale) {
+		if (scale != this.scale) {
+			this.scale = scale;
+			image = null;
+		}
+	}
+
+	/**
+	 * gets the layer image painting it again first if needed. used by the
+	 * software renderer which copies the pixels itself
+	 * @param key describes what the layer shows. paint again when it changes
+	 */
+	public BufferedImage getImage(Graphics2D target, long key) {
+		GraphicsConfiguration config = target.getDeviceConfiguration();
+		Object antialiasing = target.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		Object textAntialiasing = target.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		if (image == null || key != paintedKey || config != paintedConfig || antialiasing != paintedAntialiasing
+				|| textAntialiasing != paintedTextAntialiasing) {
+			paint(target, config);
+			paintedKey = key;
+			paintedConfig = config;
+			paintedAntialiasing = antialiasing;
+			paintedTextAntialiasing = textAntialiasing;
+		}
+		return image;
+	}
+
+	/**
+	 * throws the image away so it is painted again next time
+	 */
+	public void invalidate() {
+		image = null;
+	}
+
+	private void paint(Graphics2D target, GraphicsConfiguration config) {
+		int transparency = translucent ? Transparency.TRANSLUCENT : Transparency.OPAQUE;
+		int imageWidth = (int) Math.ceil(width * scale);
+		int imageHeight = (int) Math.ceil(height * scale);
+		if (image == null || config != paintedConfig) {
+			image = config != null ? config.createCompatibleImage(imageWidth, imageHeight, transparency)
+					: new BufferedImage(imageWidth, imageHeight,
+							translucent ? BufferedImage.TYPE_INT_ARGB_PRE : BufferedImage.TYPE_INT_RGB);
+		}
+		Graphics2D g2 = image.createGraphics();
+		// start from a clear image
+		g2.setComposite(AlphaComposite.Clear);
+		g2.fillRect(0, 0, imageWidth, imageHeight);
+		g2.setComposite(AlphaComposite.SrcOver);
+		// paint with the same settings as the screen
+		g2.setRenderingHints(target.getRenderingHints());
+		g2.scale(scale, scale);
+		painter.accept(g2);
+		g2.dispose();
+	}
+}
@@ -1,15 +1,12 @@
 import java.awt.*;
-import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import java.util.ArrayList;
 import java.util.Random;
-import javax.imageio.ImageIO;
 
 public class Enemy {
 	// enemy position
 	public double x, y;
+	// position last tick for smooth drawing
+	public double prevX, prevY;
 	// enemy size
 	public int width = 32, height = 32;
 	// enemy speed and health
@@ -24,6 +21,8 @@ public class Enemy {
 	private int maxHealth;
 	// should we draw the health bar
 	private boolean showHealthBar = false;
+	// size of the health bar
+	private static final int HEALTH_BAR_WIDTH = 30, HEALTH_BAR_HEIGHT = 5;
 
 	// states for enemy brain
 	private enum AIState {
@@ -33,13 +32,18 @@ public class Enemy {
 	// current enemy brain state
 	private AIState currentState = AIState.PATROL;
 
-	// timers for actions
-	private long lastDirectionChangeTime = 0;
-	private long lastShotTime = 0;
 	// how long to wait between shots
 	private final long SHOOT_COOLDOWN = 1200;
 	// how long to wait before changing patrol direction
 	private int patrolDirectionCooldown = 6000;
+	// timers for actions in game clock milliseconds. they start in the past so
+	// a new enemy can act right away
+	private long lastDirectionChangeTime = -patrolDirectionCooldown - 1;
+	// how long to wander off after bumping into a wall before going back to the route
+	private static final int BUMP_WANDER_TIME = 600;
+	// the nav graph node the patrol is heading for or -1 to pick a new one
+	private int patrolTarget = -1;
+	private long lastShotTime = -SHOOT_COOLDOWN - 1;
 	// used for random numbers
 	private static final Random rand = new Random();
 
@@ -51,24 +55,18 @@ public class Enemy {
 	public Enemy(double startX, double startY, EnemyType type) {
 		this.x = startX;
 		this.y = startY;
+		this.prevX = startX;
+		this.prevY = startY;
 		// if normal enemy set normal stats
 		if (type == EnemyType.NORMAL) {
 			this.maxHealth = 3;
 			this.speed = 1.5;
-			try {
-				image = ImageIO.read(new File("enemy.png"));
-			} catch (IOException e) {
-				// image failed to load
-			}
+			image = AssetManager.getShared().getImage("enemy.png");
 			// if heavy enemy set heavy stats
 		} else {
 			this.maxHealth = 5;
 			this.speed = 1.0;
-			try {
-				image = ImageIO.read(new File("heavy.png"));
-			} catch (IOException e) {
-				// image failed to load
-			}
+			image = AssetManager.getShared().getImage("heavy.png");
 		}
 		// set health to max health
 		this.health = this.maxHealth;
@@ -78,11 +76,14 @@ public class Enemy {
 
 	/**
 	 * runs all enemy logic decides what to do then does it
+	 * @param now game clock time in milliseconds
 	 */
-	public void update(Player player, Floor floor, int tileSize, ArrayList<Bullet> bullets) {
+	public void update(Player player, Floor floor, int tileSize, BulletPool bullets, long now) {
+		prevX = x;
+		prevY = y;
 		updateAIState(player, floor, tileSize);
-		performAction(player, floor, tileSize, bullets);
-		move(floor, tileSize);
+		performAction(player, floor, tileSize, bullets, now);
+		move(player, floor, tileSize, now);
 	}
 
 	/**
@@ -96,7 +97,7 @@ public class Enemy {
 		// if chasing see if we should stop
 		if (currentState == AIState.CHASE) {
 			// if player is too far or behind a wall stop chasing
-			if (distanceToPlayer > 15 * tileSize || !floor.hasLineOfSight((int) (x / tileSize), (int) (y / tileSize),
+			if (distanceToPlayer > 15 * tileSize || !floor.canSee((int) (x / tileSize), (int) (y / tileSize),
 					(int) (player.x / tileSize), (int) (player.y / tileSize))) {
 				currentState = AIState.PATROL;
 			}
@@ -110,7 +111,7 @@ public class Enemy {
 		if (distanceToPlayer < visionRange) {
 
 		    // check if there are no walls blocking the view between enemy and player
-		    if (floor.hasLineOfSight((int) (x / tileSize), (int) (y / tileSize),
+		    if (floor.canSee((int) (x / tileSize), (int) (y / tileSize),
 		                             (int) (player.x / tileSize), (int) (player.y / tileSize))) {
 
 		        // calculate the angle from the enemy to the player
@@ -139,26 +140,27 @@ public class Enemy {
 	 * does an action based on the current state if chasing face player and shoot if
 	 * patrolling change direction sometimes
 	 */
-	private void performAction(Player player, Floor floor, int tileSize, ArrayList<Bullet> bullets) {
+	private void performAction(Player player, Floor floor, int tileSize, BulletPool bullets, long now) {
 		// if we are chasing the player
 		if (currentState == AIState.CHASE) {
 			// face the player
 			facingAngle = Math.atan2(player.y - y, player.x - x);
 			// if we can shoot
-			if (System.currentTimeMillis() - lastShotTime > SHOOT_COOLDOWN) {
+			if (now - lastShotTime > SHOOT_COOLDOWN) {
 				// and we can see the player
-				if (floor.hasLineOfSight((int) (x / tileSize), (int) (y / tileSize), (int) (player.x / tileSize),
+				if (floor.canSee((int) (x / tileSize), (int) (y / tileSize), (int) (player.x / tileSize),
 						(int) (player.y / tileSize))) {
 					// shoot a bullet
-					bullets.add(new Bullet(x, y, facingAngle, false));
-					lastShotTime = System.currentTimeMillis();
+					bullets.spawn(x, y, facingAngle, false);
+					lastShotTime = now;
 				}
 			}
 			// if we are patrolling
 		} else {
-			// if its time to change direction
-			if (System.currentTimeMillis() - lastDirectionChangeTime > patrolDirectionCooldown) {
-				lastDirectionChangeTime = System.currentTimeMillis();
+			// follow the patrol route unless we are wandering for a bit. with no
+			// route we just pick a new direction every few seconds
+			if (now - lastDirectionChangeTime > patrolDirectionCooldown && !followPatrolRoute(floor, tileSize)) {
+				lastDirectionChangeTime = now;
 				patrolDirectionCooldown = rand.nextInt(3000) + 2000;
 				// pick a new random direction
 				facingAngle = rand.nextDouble() * 2 * Math.PI;
@@ -167,25 +169,72 @@ public class Enemy {
 	}
 
 	/**
-	 * moves the enemy forward checks for walls before moving
+	 * faces the enemy along its patrol route through the rooms and corridors of
+	 * the floor. picks somewhere new to go when it gets there
+	 * @return false if there is no route to follow
+	 */
+	private boolean followPatrolRoute(Floor floor, int tileSize) {
+		NavGraph graph = floor.getNavGraph();
+		int tileX = (int) (x / tileSize), tileY = (int) (y / tileSize);
+		if (graph.nodeAt(tileX, tileY) < 0 || graph.nodeCount() < 2)
+			return false;
+		int next = graph.nextTile(tileX, tileY, patrolTarget);
+		if (next < 0) {
+			// on the waypoint or cant get there so go somewhere else
+			patrolTarget = rand.nextInt(graph.nodeCount());
+			next = graph.nextTile(tileX, tileY, patrolTarget);
+			if (next < 0)
+				return false;
+		}
+		// head for the middle of the next tile on the route
+		facingAngle = Math.atan2((next / floor.WIDTH + 0.5) * tileSize - y, (next % floor.WIDTH + 0.5) * tileSize - x);
+		return true;
+	}
+
+	/**
+	 * moves the enemy forward checks for walls before moving. chasing enemies
+	 * follow the floors flow field around walls to the player and patrolling
+	 * ones face along their route
 	 */
-	private void move(Floor floor, int tileSize) {
+	private void move(Player player, Floor floor, int tileSize, long now) {
 		// go slower when patrolling
 		double currentSpeed = (currentState == AIState.CHASE) ? speed : speed * 0.7;
+		double moveAngle = facingAngle;
+		if (currentState == AIState.CHASE) {
+			// head for the middle of the next tile on the way to the player. on the
+			// players tile or with no way there just go straight at them
+			int next = floor.nextStepTowards((int) (x / tileSize), (int) (y / tileSize), (int) (player.x / tileSize),
+					(int) (player.y / tileSize));
+			if (next >= 0) {
+				double nextTileX = (next % floor.WIDTH + 0.5) * tileSize;
+				double nextTileY = (next / floor.WIDTH + 0.5) * tileSize;
+				moveAngle = Math.atan2(nextTileY - y, nextTileX - x);
+			}
+		}
 		// calculate how much to move
-		double moveX = Math.cos(facingAngle) * currentSpeed;
-		double moveY = Math.sin(facingAngle) * currentSpeed;
+		double moveX = Math.cos(moveAngle) * currentSpeed;
+		double moveY = Math.sin(moveAngle) * currentSpeed;
 
 		double nextX = x + moveX;
 		double nextY = y + moveY;
 
+		// slide along a wall instead of stopping dead
+		if (!canMove(nextX, nextY, floor, tileSize)) {
+			if (canMove(nextX, y, floor, tileSize))
+				nextY = y;
+			else if (canMove(x, nextY, floor, tileSize))
+				nextX = x;
+		}
+
 		// if we are about to hit a wall
 		if (!canMove(nextX, nextY, floor, tileSize)) {
 			// and if we are patrolling
 			if (currentState == AIState.PATROL) {
-				// pick a new direction right away
+				// wander off in a new direction for a moment then head somewhere new
 				facingAngle = rand.nextDouble() * 2 * Math.PI;
-				lastDirectionChangeTime = System.currentTimeMillis();
+				lastDirectionChangeTime = now;
+				patrolDirectionCooldown = BUMP_WANDER_TIME;
+				patrolTarget = -1;
 			}
 			return;
 		}
@@ -221,44 +270,67 @@ public class Enemy {
 		this.currentState = AIState.CHASE;
 	}
 
+	public double getFacingAngle() {
+		return facingAngle;
+	}
+
+	public Image getImage() {
+		return image;
+	}
+
+	/**
+	 * how full the health bar is
+	 * @return a number from 0 to 1 or -1 if the bar is hidden
+	 */
+	public double getHealthBarFraction() {
+		if (!showHealthBar)
+			return -1;
+		return Math.max(0, (double) health / maxHealth);
+	}
+
 	/**
-	 * draws the enemy on screen rotates it to face the right direction also draws
+	 * draws an enemy on screen rotates it to face the right direction also draws
 	 * health bar if needed
 	 */
-	public void draw(Graphics2D g2) {
-		// save current rotation
-		AffineTransform oldTransform = g2.getTransform();
-		// move and rotate to draw the enemy
-		g2.translate(x, y);
-		g2.rotate(facingAngle - Math.toRadians(90));
-		// if image exists draw it
-		if (image != null) {
-			g2.drawImage(image, -width / 2, -height / 2, width, height, null);
-		}
-		// restore old rotation
-		g2.setTransform(oldTransform);
+	public static void draw(Graphics2D g2, Image image, double x, double y, double angle, double healthFraction,
+			int width, int height) {
+		// if image exists draw it turned to face the right way
+		if (image != null)
+			SpriteCache.getShared().draw(g2, image, x, y, angle - Math.toRadians(90), width, height);
 		// if health bar should be shown draw it
-		if (showHealthBar) {
-			drawHealthBar(g2);
+		if (healthFraction >= 0) {
+			drawHealthBar(g2, x, y, healthFraction, height);
+		}
+	}
+
+	/**
+	 * same as the other draw but into the software renderer
+	 */
+	public static void draw(SoftwareRenderer renderer, Graphics2D target, Image image, double x, double y,
+			double angle, double healthFraction, int width, int height) {
+		if (image != null)
+			SpriteCache.getShared().draw(renderer, target, image, x, y, angle - Math.toRadians(90), width, height);
+		if (healthFraction >= 0) {
+			int barX = (int) (x - HEALTH_BAR_WIDTH / 2.0);
+			int barY = (int) (y - height / 2.0 - 10);
+			renderer.fillRect(barX, barY, HEALTH_BAR_WIDTH, HEALTH_BAR_HEIGHT, Color.DARK_GRAY.getRGB());
+			renderer.fillRect(barX, barY, (int) (HEALTH_BAR_WIDTH * healthFraction), HEALTH_BAR_HEIGHT,
+					Color.RED.getRGB());
 		}
 	}
 
 	/**
 	 * draws a health bar above the enemy
 	 */
-	private void drawHealthBar(Graphics2D g2) {
-		int barWidth = 30;
-		int barHeight = 5;
-		int barX = (int) (x - barWidth / 2.0);
+	private static void drawHealthBar(Graphics2D g2, double x, double y, double healthPercentage, int height) {
+		int barX = (int) (x - HEALTH_BAR_WIDTH / 2.0);
 		int barY = (int) (y - height / 2.0 - 10);
 		// draw gray background
 		g2.setColor(Color.DARK_GRAY);
-		g2.fillRect(barX, barY, barWidth, barHeight);
-		// calculate health percentage
-		double healthPercentage = Math.max(0, (double) health / maxHealth);
+		g2.fillRect(barX, barY, HEALTH_BAR_WIDTH, HEALTH_BAR_HEIGHT);
 		// draw red health part
 		g2.setColor(Color.RED);
-		g2.fillRect(barX, barY, (int) (barWidth * healthPercentage), barHeight);
+		g2.fillRect(barX, barY, (int) (HEALTH_BAR_WIDTH * healthPercentage), HEALTH_BAR_HEIGHT);
 	}
 
 	/**
@@ -1,4 +1,5 @@
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.Random;
 
@@ -9,6 +10,10 @@ public class Floor {
 	final int[][] map;
 	// tile types
 	public static final int FLOOR = 0, WALL = 1, COMPUTER = 2, UP = 3, DOWN = 4;
+	// tile colors
+	private static final Color FLOOR_COLOR = new Color(30, 30, 30);
+	private static final Color LOCKED_UP_COLOR = new Color(100, 0, 0);
+	private static final Color GRID_COLOR = new Color(0, 255, 0);
 	// player starting position
 	int startX, startY;
 	// location of stairs
@@ -28,6 +33,22 @@ public class Floor {
 	// timer for computer cooldown
 	private long computerCooldownTime = 0;
 
+	// every tile drawn once into an image so a frame only has to copy it. it is
+	// made on the render thread the first time the floor is drawn and made again
+	// when the floor is generated again or the up stairs change color
+	private BufferedImage tileLayer;
+	// tile size the layer was drawn at
+	private int tileLayerTileSize;
+	// set by the game thread when the layer needs to be drawn again
+	private volatile boolean tileLayerDirty = true;
+
+	// kept line of sight answers so enemies dont walk the same lines every tick
+	private final LineOfSight lineOfSight;
+	// the way to the player from every tile shared by all chasing enemies
+	private final FlowField flowField;
+	// rooms and corridors patrolling enemies walk between
+	private final NavGraph navGraph;
+
 	public Floor(int width, int height, int floorIndex, int tileSize, long seed) {
 		this.WIDTH = width;
 		this.HEIGHT = height;
@@ -36,6 +57,9 @@ public class Floor {
 		// store the seed for this floor
 		this.seed = seed;
 		map = new int[HEIGHT][WIDTH];
+		lineOfSight = new LineOfSight(this, WIDTH, HEIGHT);
+		flowField = new FlowField(this, WIDTH, HEIGHT);
+		navGraph = new NavGraph(this, WIDTH, HEIGHT);
 		// create the level
 		generate();
 	}
@@ -63,6 +87,9 @@ public class Floor {
 	public void generate() {
 		// use the floor's seed for random numbers
 		Random rand = new Random(this.seed);
+		tileLayerDirty = true;
+		lineOfSight.clear();
+		flowField.clear();
 
 		// fill entire map with walls
 		for (int y = 0; y < HEIGHT; y++) {
@@ -125,6 +152,9 @@ public class Floor {
 			}
 		}
 
+		// work out the patrol routes now the tiles are done
+		navGraph.build();
+
 		// spawn enemies
 		int totalGuards = Math.min(8, 2 + floorIndex);
 		int maxHeavyGuards = Math.min(totalGuards, floorIndex / 2);
@@ -157,19 +187,92 @@ public class Floor {
 	}
 
 	/**
-	 * draws the entire floor and all enemies
+	 * draws all the tiles of the floor. enemies are drawn separately from the
+	 * render snapshot
 	 */
 	public void draw(Graphics2D g2, int tileSize) {
+		prepareTileLayer(g2, tileSize);
+		g2.drawImage(tileLayer, 0, 0, null);
+	}
+
+	/**
+	 * draws only the tiles that can be seen in the view
+	 */
+	public void draw(Graphics2D g2, int tileSize, Viewport view) {
+		draw(g2, tileSize, view, 1.0);
+	}
+
+	/**
+	 * draws only the tiles that can be seen when g2 is scaled down by scale. the
+	 * layer is drawn at the smaller size so it is still copied pixel for pixel
+	 * and the grid lines dont get lost
+	 */
+	public void draw(Graphics2D g2, int tileSize, Viewport view, double scale) {
+		int layerTileSize = (int) Math.round(tileSize * scale);
+		prepareTileLayer(g2, layerTileSize);
+		// the visible tiles clamped to the map. the extra pixel is the grid line
+		int left = Math.max(0, view.firstColumn(tileSize)) * layerTileSize;
+		int top = Math.max(0, view.firstRow(tileSize)) * layerTileSize;
+		int right = (Math.min(WIDTH - 1, view.lastColumn(tileSize)) + 1) * layerTileSize + 1;
+		int bottom = (Math.min(HEIGHT - 1, view.lastRow(tileSize)) + 1) * layerTileSize + 1;
+		if (left >= right || top >= bottom)
+			return;
+		if (scale != 1.0)
+			g2.scale(1 / scale, 1 / scale);
+		g2.drawImage(tileLayer, left, top, right, bottom, left, top, right, bottom, null);
+		if (scale != 1.0)
+			g2.scale(scale, scale);
+	}
+
+	/**
+	 * gets the image with every tile drawn on it. the grid lines make it one
+	 * pixel wider and taller than the map
+	 */
+	public BufferedImage getTileLayer(Graphics2D g2, int tileSize) {
+		prepareTileLayer(g2, tileSize);
+		return tileLayer;
+	}
+
+	/**
+	 * makes sure the cached tile layer is up to date
+	 */
+	private void prepareTileLayer(Graphics2D g2, int tileSize) {
+		if (tileLayer == null || tileLayerDirty || tileLayerTileSize != tileSize) {
+			// clear the flag first so a change made while drawing is not lost
+			tileLayerDirty = false;
+			bakeTileLayer(g2, tileSize);
+		}
+	}
+
+	/**
+	 * draws every tile into the cached layer. the image is made compatible with
+	 * the screen so java can keep it in video memory
+	 */
+	private void bakeTileLayer(Graphics2D target, int tileSize) {
+		// the grid lines go one pixel past the last tile
+		int width = WIDTH * tileSize + 1;
+		int height = HEIGHT * tileSize + 1;
+		if (tileLayer == null || tileLayerTileSize != tileSize) {
+			GraphicsConfiguration config = target.getDeviceConfiguration();
+			tileLayer = config != null ? config.createCompatibleImage(width, height, Transparency.OPAQUE)
+					: new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+			tileLayerTileSize = tileSize;
+		}
+		Graphics2D g2 = tileLayer.createGraphics();
+		// use the same hints as the screen so the layer looks the same as before
+		g2.setRenderingHints(target.getRenderingHints());
+		g2.setColor(Color.BLACK);
+		g2.fillRect(0, 0, width, height);
 		// loop through every tile
 		for (int y = 0; y < HEIGHT; y++) {
 			for (int x = 0; x < WIDTH; x++) {
 				// pick a color based on the tile type
 				switch (map[y][x]) {
-				case FLOOR -> g2.setColor(new Color(30, 30, 30));
+				case FLOOR -> g2.setColor(FLOOR_COLOR);
 				case WALL -> g2.setColor(Color.BLUE);
 				case COMPUTER -> g2.setColor(Color.YELLOW);
 				// up stairs are green if hacked red if not
-				case UP -> g2.setColor(computerHacked ? Color.GREEN : new Color(100, 0, 0));
+				case UP -> g2.setColor(computerHacked ? Color.GREEN : LOCKED_UP_COLOR);
 				case DOWN -> g2.setColor(Color.ORANGE);
 				}
 				// draw the tile
@@ -182,13 +285,11 @@ public class Floor {
 				}
 
 				// draw a grid
-				g2.setColor(new Color(0, 255, 0));
+				g2.setColor(GRID_COLOR);
 				g2.drawRect(x * tileSize, y * tileSize, tileSize, tileSize);
 			}
 		}
-		// draw all enemies
-		for (Enemy enemy : enemies)
-			enemy.draw(g2);
+		g2.dispose();
 	}
 
 	public int getTile(int x, int y) {
@@ -239,6 +340,76 @@ public class Floor {
 		return true;
 	}
 
+	/**
+	 * same as hasLineOfSight but remembers the answers for the tile being looked
+	 * at so asking again is almost free. see LineOfSight
+	 */
+	public boolean canSee(int fromX, int fromY, int toX, int toY) {
+		return lineOfSight.canSee(fromX, fromY, toX, toY);
+	}
+
+	/**
+	 * finds the next tile on the shortest walk from one tile to another. the
+	 * whole floor is searched once for each tile walked to. see FlowField
+	 * @return the tile as y * WIDTH + x or -1 if already there or there is no way
+	 */
+	public int nextStepTowards(int fromX, int fromY, int toX, int toY) {
+		return flowField.nextStep(fromX, fromY, toX, toY);
+	}
+
+	/**
+	 * gets the rooms and corridors of the floor for patrol routes. see NavGraph
+	 */
+	public NavGraph getNavGraph() {
+		return navGraph;
+	}
+
+	/**
+	 * works out how long a point moving in a straight line takes to reach a tile
+	 * that isnt walkable. it steps through every tile the line crosses in order so
+	 * it cant skip over a thin wall or cut a corner
+	 * @param velocityX how far the point moves each tick in pixels
+	 * @return the time in ticks. 0 if it starts on one and infinity if it never
+	 *         moves
+	 */
+	public double timeToWall(double x, double y, double velocityX, double velocityY, int tileSize) {
+		int tileX = (int) Math.floor(x / tileSize);
+		int tileY = (int) Math.floor(y / tileSize);
+		if (!isWalkable(tileX, tileY))
+			return 0;
+		if (velocityX == 0 && velocityY == 0)
+			return Double.POSITIVE_INFINITY;
+		int stepX = velocityX > 0 ? 1 : -1;
+		int stepY = velocityY > 0 ? 1 : -1;
+		// when the line crosses into the next column and row and how long it takes
+		// to cross a whole tile
+		double nextX = Double.POSITIVE_INFINITY, deltaX = Double.POSITIVE_INFINITY;
+		double nextY = Double.POSITIVE_INFINITY, deltaY = Double.POSITIVE_INFINITY;
+		if (velocityX != 0) {
+			nextX = ((tileX + (stepX > 0 ? 1 : 0)) * tileSize - x) / velocityX;
+			deltaX = tileSize / Math.abs(velocityX);
+		}
+		if (velocityY != 0) {
+			nextY = ((tileY + (stepY > 0 ? 1 : 0)) * tileSize - y) / velocityY;
+			deltaY = tileSize / Math.abs(velocityY);
+		}
+		// everything off the map counts as a wall so this always ends
+		while (true) {
+			double time;
+			if (nextX < nextY) {
+				tileX += stepX;
+				time = nextX;
+				nextX += deltaX;
+			} else {
+				tileY += stepY;
+				time = nextY;
+				nextY += deltaY;
+			}
+			if (!isWalkable(tileX, tileY))
+				return time;
+		}
+	}
+
 	public int getStartX() {
 		return startX;
 	}
@@ -268,7 +439,11 @@ public class Floor {
 	}
 
 	public void setComputerHacked(boolean hacked) {
-		this.computerHacked = hacked;
+		if (this.computerHacked != hacked) {
+			this.computerHacked = hacked;
+			// the up stairs change color
+			tileLayerDirty = true;
+		}
 	}
 
 	public long getComputerCooldownTime() {
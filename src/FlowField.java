@@ -0,0 +1,116 @@
+import java.util.Arrays;
+
+// which way to step from every tile on a floor to get to one target tile, so
+// any number of enemies can find their way around walls to the player by
+// looking at the eight tiles around them. it is a breadth first search out from
+// the target, done again only when the target moves to another tile or the map
+// changes. a tile asking the way steps to its neighbour closest to the target.
+// diagonal steps are allowed when both tiles beside them are open so nothing
+// cuts a wall corner. the arrays are made once per floor so nothing is made
+// while searching
+public class FlowField {
+	private final Floor floor;
+	private final int width, height;
+	// the field is kept one tile bigger on every side so the edge tiles have
+	// neighbours too and nothing needs a bounds check
+	private final int stride;
+	// how far to move in the arrays for each of the eight neighbours. the first
+	// four are straight
+	private final int[] neighbourOffset;
+
+	// which tiles can be walked on, copied from the map the first time it is needed
+	private final boolean[] open;
+	private boolean openKnown;
+	// the tile the field leads to or -1 when there is no field
+	private int targetX = -1, targetY = -1;
+	// straight steps from each tile to the target or -1 if it cant get there
+	private final int[] distance;
+	// tiles waiting to be searched
+	private final int[] queue;
+
+	public FlowField(Floor floor, int width, int height) {
+		this.floor = floor;
+		this.width = width;
+		this.height = height;
+		stride = width + 2;
+		neighbourOffset = new int[] { 1, -1, stride, -stride, stride + 1, -stride + 1, stride - 1, -stride - 1 };
+		int size = stride * (height + 2);
+		open = new boolean[size];
+		distance = new int[size];
+		queue = new int[size];
+	}
+
+	/**
+	 * finds the next tile on the way from one tile to another
+	 * @return the tile as y * width + x or -1 if already there or there is no way
+	 */
+	public int nextStep(int fromX, int fromY, int toX, int toY) {
+		if (fromX < 0 || fromY < 0 || fromX >= width || fromY >= height)
+			return -1;
+		if (toX != targetX || toY != targetY)
+			build(toX, toY);
+		int tile = (fromY + 1) * stride + fromX + 1;
+		int best = -1, bestDistance = distance[tile];
+		// a diagonal saves a step so it wins when the corner is open
+		for (int d = 0; d < 8; d++) {
+			int neighbour = tile + neighbourOffset[d];
+			int steps = distance[neighbour];
+			if (steps < 0 || steps >= bestDistance)
+				continue;
+			// a diagonal needs both tiles beside it open. those are the two
+			// straight steps it is made of, one up or down and one across
+			if (d >= 4) {
+				int vertical = (d & 1) == 0 ? stride : -stride;
+				if (!open[tile + vertical] || !open[tile + neighbourOffset[d] - vertical])
+					continue;
+			}
+			best = neighbour;
+			bestDistance = steps;
+		}
+		if (best < 0)
+			return -1;
+		return (best / stride - 1) * width + best % stride - 1;
+	}
+
+	/**
+	 * forgets the field. called when the map changes
+	 */
+	public void clear() {
+		targetX = -1;
+		targetY = -1;
+		openKnown = false;
+	}
+
+	private void build(int toX, int toY) {
+		targetX = toX;
+		targetY = toY;
+		if (!openKnown) {
+			// the border stays closed
+			for (int y = 0; y < height; y++) {
+				for (int x = 0; x < width; x++)
+					open[(y + 1) * stride + x + 1] = floor.isWalkable(x, y);
+			}
+			openKnown = true;
+		}
+		Arrays.fill(distance, -1);
+		if (!floor.isWalkable(toX, toY))
+			return;
+
+		// breadth first search out from the target over open tiles
+		int head = 0, tail = 0;
+		int target = (toY + 1) * stride + toX + 1;
+		distance[target] = 0;
+		queue[tail++] = target;
+		while (head < tail) {
+			int tile = queue[head++];
+			int stepsHere = distance[tile] + 1;
+			for (int d = 0; d < 4; d++) {
+				int neighbour = tile + neighbourOffset[d];
+				if (open[neighbour] && distance[neighbour] < 0) {
+					distance[neighbour] = stepsHere;
+					queue[tail++] = neighbour;
+				}
+			}
+		}
+	}
+}
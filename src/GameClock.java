@@ -0,0 +1,88 @@
+// the games own clock. it only moves when the game ticks, by exactly one tick
+// each time, so every cooldown and timer in the game is measured in game time
+// instead of wall clock time. that keeps timers right when the loop drops frames
+// and lets the game run faster or slower than real time. it can also be paused
+// and stepped one tick at a time
+public class GameClock {
+	// fastest and slowest the game can be sped up or slowed down
+	public static final double MIN_TIME_SCALE = 1.0 / 8;
+	public static final double MAX_TIME_SCALE = 64;
+
+	// how much game time one tick is
+	private final long tickNanos;
+	// game time since the clock was made
+	private long nowNanos = 0;
+
+	// how fast game time runs compared to real time. read by the game loop
+	private volatile double timeScale = 1.0;
+	// when paused the game only moves when a step is asked for
+	private volatile boolean paused = false;
+	private volatile boolean stepRequested = false;
+
+	/**
+	 * @param ticksPerSecond how many ticks make one second of game time
+	 */
+	public GameClock(int ticksPerSecond) {
+		if (ticksPerSecond <= 0)
+			throw new IllegalArgumentException("ticks per second must be positive");
+		this.tickNanos = 1_000_000_000L / ticksPerSecond;
+	}
+
+	/**
+	 * moves game time forward by one tick. called once at the start of every tick
+	 */
+	public void advance() {
+		nowNanos += tickNanos;
+	}
+
+	/**
+	 * @return game time in milliseconds
+	 */
+	public long millis() {
+		return nowNanos / 1_000_000L;
+	}
+
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * checks if the game should move forward this tick. uses up a pending step
+	 * when paused
+	 */
+	public boolean shouldAdvance() {
+		if (!paused)
+			return true;
+		if (stepRequested) {
+			stepRequested = false;
+			return true;
+		}
+		return false;
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	public void setPaused(boolean paused) {
+		this.paused = paused;
+	}
+
+	/**
+	 * while paused lets exactly one more tick happen
+	 */
+	public void step() {
+		stepRequested = true;
+	}
+
+	public double getTimeScale() {
+		return timeScale;
+	}
+
+	/**
+	 * sets how fast the game runs. 2 is double speed and 0.5 is slow motion
+	 */
+	public void setTimeScale(double scale) {
+		this.timeScale = Math.max(MIN_TIME_SCALE, Math.min(MAX_TIME_SCALE, scale));
+	}
+}
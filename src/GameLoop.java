@@ -0,0 +1,299 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.LockSupport;
+
+// this runs the game at a fixed speed. it updates the game a set number of
+// times per second and sleeps until the next update or frame is due. frames can
+// either be drawn on the same thread or on their own render thread so the
+// frame rate can be higher than the update rate.
+//
+// when nothing is moving, like on a menu, the loop can be put on demand. then
+// it sleeps until woken by input and runs one tick and one frame each time,
+// plus one every second just in case. when suspended it sleeps until resumed
+// and does nothing at all
+public class GameLoop implements Runnable {
+	// the thing that gets told when to update and when to draw
+	public interface Listener {
+		// move the game forward by one fixed step
+		void tick();
+
+		// draw a frame
+		void render();
+	}
+
+	// dont bother sleeping for less than this, just yield instead
+	private static final long MIN_PARK_NANOS = 200_000;
+	// longest the loop sleeps when on demand before drawing a frame anyway
+	private static final long IDLE_FRAME_NANOS = 1_000_000_000L;
+
+	private final Listener listener;
+	// how long one update and one frame take in nanoseconds
+	private final long tickNanos;
+	private final long frameNanos;
+	// most updates we will run in a row to catch up after a stall
+	private final int maxCatchUpTicks;
+	// draw frames on a second thread instead of between ticks
+	private final boolean separateRenderThread;
+	// the game clock. its time scale speeds up or slows down the ticks
+	private final GameClock clock;
+
+	// the threads running the loop
+	private volatile Thread loopThread;
+	private volatile Thread renderThread;
+	// set to false to make the loop stop
+	private volatile boolean running;
+	// only tick and draw when woken
+	private volatile boolean onDemand;
+	// dont tick or draw at all
+	private volatile boolean suspended;
+	// set when the loop should run a tick while on demand
+	private final AtomicBoolean wakeRequested = new AtomicBoolean();
+	// set when the render thread should draw a frame while on demand
+	private final AtomicBoolean frameRequested = new AtomicBoolean();
+
+	public GameLoop(Listener listener, GameClock clock, int framesPerSecond, int maxCatchUpTicks,
+			boolean separateRenderThread) {
+		if (framesPerSecond <= 0 || maxCatchUpTicks <= 0)
+			throw new IllegalArgumentException("frame rate and catch up limit must be positive");
+		this.listener = listener;
+		this.clock = clock;
+		this.tickNanos = clock.getTickNanos();
+		this.frameNanos = 1_000_000_000L / framesPerSecond;
+		this.maxCatchUpTicks = maxCatchUpTicks;
+		this.separateRenderThread = separateRenderThread;
+	}
+
+	/**
+	 * starts the loop on its own thread
+	 */
+	public void start() {
+		running = true;
+		Thread thread = new Thread(this, "ByteRunner-GameLoop");
+		loopThread = thread;
+		thread.start();
+	}
+
+	/**
+	 * asks the loop to stop and wakes it up if its sleeping
+	 */
+	public void stop() {
+		running = false;
+		unpark(loopThread);
+		unpark(renderThread);
+	}
+
+	public boolean isRunning() {
+		return running;
+	}
+
+	/**
+	 * asks for a tick and a frame. does nothing special unless the loop is on
+	 * demand. safe to call from any thread
+	 */
+	public void wake() {
+		wakeRequested.set(true);
+		unpark(loopThread);
+		// the render thread may be parked waiting to leave on demand or suspended
+		unpark(renderThread);
+	}
+
+	private static void unpark(Thread thread) {
+		if (thread != null)
+			LockSupport.unpark(thread);
+	}
+
+	/**
+	 * turns on demand mode on or off. while on the loop only ticks and draws
+	 * when woken. both threads are woken when it changes
+	 */
+	public void setOnDemand(boolean onDemand) {
+		if (this.onDemand == onDemand)
+			return;
+		this.onDemand = onDemand;
+		// draw one last frame of the new state
+		wake();
+	}
+
+	public boolean isOnDemand() {
+		return onDemand;
+	}
+
+	/**
+	 * stops or restarts all ticking and drawing. while suspended both threads
+	 * are parked and both are woken when it is restarted
+	 */
+	public void setSuspended(boolean suspended) {
+		this.suspended = suspended;
+		if (!suspended)
+			wake();
+	}
+
+	public boolean isSuspended() {
+		return suspended;
+	}
+
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/**
+	 * @return how much real time there is between ticks at the current time scale
+	 */
+	public long getScaledTickNanos() {
+		return Math.max(1, (long) (tickNanos / clock.getTimeScale()));
+	}
+
+	/**
+	 * the loop itself. runs ticks when they are due, draws frames when they are due
+	 * and parks the thread until the closest of the two deadlines
+	 */
+	@Override
+	public void run() {
+		loopThread = Thread.currentThread();
+		running = true;
+
+		// hand drawing off to its own thread if asked to
+		if (separateRenderThread) {
+			Thread thread = new Thread(this::runRenderLoop, "ByteRunner-Render");
+			thread.setDaemon(true);
+			renderThread = thread;
+			thread.start();
+		}
+
+		long nextTick = System.nanoTime();
+		long nextFrame = nextTick;
+
+		while (running) {
+			if (suspended || onDemand) {
+				if (!waitForWake())
+					continue;
+				// one tick to handle the input that woke us and one frame to show it
+				listener.tick();
+				requestFrame();
+				// start the schedule again from now so we dont try to catch up on
+				// all the time we were asleep
+				nextTick = System.nanoTime() + getScaledTickNanos();
+				nextFrame = nextTick;
+				continue;
+			}
+			long now = System.nanoTime();
+
+			// run every tick that is due but never more than the catch up limit
+			long step = getScaledTickNanos();
+			int ticksRun = 0;
+			while (now - nextTick >= 0 && ticksRun < maxCatchUpTicks) {
+				listener.tick();
+				nextTick += step;
+				ticksRun++;
+			}
+			// if we are still behind after catching up drop the missed ticks
+			// so the game slows down for a moment instead of spiralling
+			if (now - nextTick >= 0)
+				nextTick = now + step;
+
+			// sleep until the next tick if another thread is drawing
+			if (separateRenderThread) {
+				sleepUntil(nextTick);
+				continue;
+			}
+
+			// draw a frame if one is due
+			if (now - nextFrame >= 0) {
+				listener.render();
+				nextFrame += frameNanos;
+				// dont try to make up for frames we missed
+				if (now - nextFrame >= 0)
+					nextFrame = now + frameNanos;
+			}
+
+			// sleep until whatever comes next
+			long wakeUp = (nextTick - nextFrame < 0) ? nextTick : nextFrame;
+			sleepUntil(wakeUp);
+		}
+		loopThread = null;
+	}
+
+	/**
+	 * the render thread. draws a frame whenever one is due and sleeps in between
+	 */
+	private void runRenderLoop() {
+		long nextFrame = System.nanoTime();
+		while (running) {
+			if (suspended || onDemand) {
+				// wait until the loop thread asks for a frame
+				if (frameRequested.getAndSet(false)) {
+					listener.render();
+					nextFrame = System.nanoTime() + frameNanos;
+				} else {
+					LockSupport.park(this);
+				}
+				continue;
+			}
+			long now = System.nanoTime();
+			if (now - nextFrame >= 0) {
+				listener.render();
+				nextFrame += frameNanos;
+				if (now - nextFrame >= 0)
+					nextFrame = now + frameNanos;
+			}
+			sleepUntil(nextFrame);
+		}
+		renderThread = null;
+	}
+
+	/**
+	 * sleeps while suspended or on demand until something wakes the loop
+	 * @return true if a tick should run now, false if the loop should check its
+	 *         mode again
+	 */
+	private boolean waitForWake() {
+		long deadline = System.nanoTime() + IDLE_FRAME_NANOS;
+		while (running) {
+			if (suspended) {
+				// nothing happens until we are resumed
+				wakeRequested.set(false);
+				LockSupport.park(this);
+				if (!suspended)
+					return true;
+				continue;
+			}
+			if (!onDemand)
+				return false;
+			if (wakeRequested.getAndSet(false))
+				return true;
+			long remaining = deadline - System.nanoTime();
+			// nothing woke us for a while so draw a frame anyway
+			if (remaining <= 0)
+				return true;
+			LockSupport.parkNanos(this, remaining);
+		}
+		return false;
+	}
+
+	/**
+	 * draws a frame now or asks the render thread to draw one
+	 */
+	private void requestFrame() {
+		if (!separateRenderThread) {
+			listener.render();
+			return;
+		}
+		frameRequested.set(true);
+		unpark(renderThread);
+	}
+
+	/**
+	 * parks the thread until the deadline. very short waits just yield so we
+	 * dont oversleep past the deadline
+	 */
+	private void sleepUntil(long deadline) {
+		while (running) {
+			long remaining = deadline - System.nanoTime();
+			if (remaining <= 0)
+				return;
+			if (remaining > MIN_PARK_NANOS)
+				LockSupport.parkNanos(this, remaining - MIN_PARK_NANOS / 2);
+			else
+				Thread.yield();
+		}
+	}
+}
@@ -1,21 +1,23 @@
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.Properties;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Collectors;
 
 
-public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMotionListener, MouseListener, MouseWheelListener {
+public class GamePanel extends JPanel implements Runnable, GameLoop.Listener, KeyListener, MouseMotionListener, MouseListener, MouseWheelListener {
 	// game screen variables
-	private int tileSize;
+	private final int tileSize;
 	private final int screenCols = 20;
 	private final int screenRows = 18;
 	private final int screenWidth = 1280;
@@ -28,61 +30,159 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 
 	// game loop thread and main objects
 	Thread gameThread;
-	Player player;
-	// list of all floors in a level
-	ArrayList<Floor> floors = new ArrayList<>();
-	int currentFloorIndex = 0;
-	// mouse position
-	int mouseX;
-	int mouseY;
-	// timer for using teleporters
-	private long lastTeleportTime = 0;
-	private final long TELEPORTER_COOLDOWN = 1000;
-	// list of all bullets on screen
-	private final ArrayList<Bullet> bullets = new ArrayList<>();
-	// is the game paused for a minigame
-	private boolean isGamePaused = false;
+	private volatile GameLoop gameLoop;
+	// wakes the loop after input so menus only draw when something changes
+	private final InputWaker inputWaker = new InputWaker();
+	// true while the window is minimized or in the background
+	private volatile boolean windowAway = false;
+	// true if we paused the level because the window went away
+	private boolean autoPaused = false;
+	// stop the game when the window loses focus not just when it is minimized
+	private final boolean suspendWhenUnfocused = !Boolean.getBoolean("byterunner.keepRunningUnfocused");
+	// how many updates and frames per second. can be changed with -Dbyterunner.tickRate etc
+	private final int ticksPerSecond = Integer.getInteger("byterunner.tickRate", 60);
+	private final int framesPerSecond = Integer.getInteger("byterunner.frameRate", 60);
+	// game time. can be paused stepped and sped up with F5 to F8
+	private final GameClock clock = new GameClock(ticksPerSecond);
+	// the F5 to F8 clock keys only work with -Dbyterunner.debugClock=true so
+	// slow motion cant be used to cheat
+	private final boolean debugClock = Boolean.getBoolean("byterunner.debugClock");
+	// most updates to run back to back after the game freezes for a bit
+	private final int maxCatchUpTicks = Integer.getInteger("byterunner.maxCatchUpTicks", 5);
+	// draw on a separate thread so frames can come faster than updates
+	private final boolean separateRenderThread = !Boolean.getBoolean("byterunner.singleThreaded");
+	// copies of the world handed from the game thread to the drawing code
+	private final SnapshotBuffer snapshots = new SnapshotBuffer();
+	// debug hud with frame times and memory numbers. toggled with F3
+	private final PerfOverlay perfOverlay = new PerfOverlay();
+	// what part of the world is on screen. only used by the drawing code
+	private final Viewport viewport = new Viewport();
+	// draws all the bullets from pre drawn dots
+	private final BulletRenderer bulletRenderer = new BulletRenderer();
+	// draws the world into an int array instead of through java2d when picked
+	// with -Dbyterunner.renderer=software. null means java2d
+	private final SoftwareRenderer softwareRenderer = SoftwareRenderer.fromSettings(screenWidth, screenHeight);
+	// picks the render quality and steps it down when frames get slow
+	private final QualityGovernor qualityGovernor = QualityGovernor.fromSettings(framesPerSecond);
+	// the quality the cached layers were painted at. only used by the drawing code
+	private RenderQuality paintedQuality;
+	// smaller frame drawn when the quality has a render scale below 1
+	private VolatileImage scaledFrame;
+	// how far an enemy sprite and its health bar reach from its middle
+	private static final int ENEMY_DRAW_RADIUS = 32;
+	// canvas the loop draws on directly when active rendering is turned on.
+	// null means we use normal swing repaint
+	private volatile ActiveRenderCanvas activeCanvas;
+	// true while a menu frame is waiting to be drawn on the event thread
+	private final AtomicBoolean menuFrameQueued = new AtomicBoolean();
+	// the game rules levels and coins. this panel just shows it and feeds it input
+	private final GameWorld world;
+	// mouse position for highlighting buttons. written by the event thread
+	volatile int mouseX;
+	volatile int mouseY;
+	// input from the listeners waiting for the game thread
+	private final InputQueue inputQueue = new InputQueue(1024);
+	private final InputQueue.Handler inputHandler = this::handleInput;
+	private static final Player.Direction[] DIRECTIONS = Player.Direction.values();
+	// where the player is aiming. only used on the game thread
+	private int aimX;
+	private int aimY;
+	// the floor whose computer is being hacked right now. only used on the game thread
+	private Floor hackingFloor;
 
 	// what state the game is in like menu or playing
 	private enum GameState {
 		MAIN_MENU, LEVEL_SELECT, TUTORIAL, IN_GAME, GAME_OVER, LEVEL_WON, ITEM_SHOP
 	}
 
-	// the current game state
-	private GameState currentState = GameState.MAIN_MENU;
+	// the current game state. read by both the game thread and the drawing code
+	private volatile GameState currentState = GameState.MAIN_MENU;
 
-	// level and timer stuff
-	private final ArrayList<Level> levels = new ArrayList<>();
-	private int highestLevelUnlocked = 1;
-	private int activeLevelNumber = 1;
-	private long levelTimeRemaining;
-	private long lastSecondUpdateTime;
-
-	// money and player skins
-	private int coins = 0;
+	// player skins
 	private final ArrayList<CharacterSkin> characterSkins = new ArrayList<>();
-	private String equippedSkinID = "char_default";
+	private volatile String equippedSkinID = "char_default";
 	// name of the save file
 	private static final String SAVE_FILE = "byterunner.properties";
 	
 	private int shopScrollY = 0;
+	// layout of the item shop grid. used for both drawing and clicking
+	private static final int SHOP_COLUMNS = 6;
+	private static final int SHOP_ITEM_WIDTH = 160;
+	private static final int SHOP_ITEM_HEIGHT = 180;
+	private static final int SHOP_H_PADDING = 30;
+	private static final int SHOP_V_PADDING = 20;
+	private static final int SHOP_START_Y = 120;
+	private static final int SHOP_PREVIEW_SIZE = 80;
+	private static final Color SHOP_ITEM_COLOR = new Color(40, 40, 40);
+	private static final Color SHOP_PLACEHOLDER_COLOR = new Color(60, 60, 60);
+	// small skin pictures for the shop. made in the background the first time
+	// an item scrolls into view
+	private final ThumbnailCache skinThumbnails = new ThumbnailCache(SHOP_PREVIEW_SIZE, SHOP_PREVIEW_SIZE, 64);
 
 	// fonts for drawing text
 	private final Font titleFont = new Font("Krungthep", Font.BOLD, 96);
 	private final Font buttonFont = new Font("Monospaced", Font.BOLD, 30);
 	private final Font textFont = new Font("Monospaced", Font.PLAIN, 16);
 	private final Font smallFont = new Font("Monospaced", Font.BOLD, 14);
+	private final Font headingFont = new Font("Monospaced", Font.BOLD, 72);
+	private final Font hudFont = new Font("Monospaced", Font.BOLD, 20);
+	// colors and lines used by the menus
+	private static final Color MENU_GRID_COLOR = new Color(0, 255, 255, 50);
+	private static final Color GAME_GRID_COLOR = new Color(255, 0, 0);
+	private static final Color TITLE_GLOW_COLOR = new Color(0, 255, 255, 60);
+	private static final Color SCANLINE_COLOR = new Color(0, 0, 0, 70);
+	private static final Color DIM_COLOR = new Color(0, 0, 0, 150);
+	private static final BasicStroke BUTTON_STROKE = new BasicStroke(2);
+	private static final BasicStroke THIN_STROKE = new BasicStroke(1);
+	private static final BasicStroke SELECTED_STROKE = new BasicStroke(3);
 	// rectangles for menu buttons
 	private Rectangle playButton;
 	private Rectangle tutorialButton;
 	private Rectangle exitButton;
 	private Rectangle shopButton;
 	private final ArrayList<Rectangle> levelButtons = new ArrayList<>();
-	private final ArrayList<Rectangle> shopItemButtons = new ArrayList<>();
 	private Rectangle retryButton;
 	private Rectangle menuButton;
+	// text that is drawn every frame. each label is only drawn again when the
+	// number it shows changes
+	private final TextLabel ammoLabel = new TextLabel(hudFont, Color.CYAN);
+	private final TextLabel timeLabel = new TextLabel(buttonFont, Color.ORANGE);
+	private final TextLabel floorLabel = new TextLabel(hudFont, Color.WHITE);
+	private final TextLabel menuCoinLabel = new TextLabel(buttonFont, Color.YELLOW);
+	private final TextLabel shopCoinLabel = new TextLabel(buttonFont, Color.YELLOW);
+	private final TextLabel ownedLabel = new TextLabel(smallFont, Color.GREEN, "Owned");
+	private TextLabel[] skinNameLabels;
+	private TextLabel[] skinPriceLabels;
+
+	// back buttons for the level select and tutorial, the shop and the level won screen
+	private Rectangle backButton;
+	private Rectangle shopBackButton;
+	private Rectangle levelWonButton;
+
+	// the parts of each screen that dont change, painted once and copied every
+	// frame. the buttons that light up and the coin count are drawn on top
+	private final CachedLayer mainMenuLayer = new CachedLayer(screenWidth, screenHeight, false,
+			this::paintMainMenuLayer);
+	private final CachedLayer scanlineLayer = new CachedLayer(screenWidth, screenHeight, true, this::paintScanlines);
+	private final CachedLayer gameBackgroundLayer = new CachedLayer(screenWidth, screenHeight, false,
+			g2 -> drawBackgroundGrid(g2, GAME_GRID_COLOR));
+	private final CachedLayer levelSelectLayer = new CachedLayer(screenWidth, screenHeight, false,
+			this::paintLevelSelectLayer);
+	private final CachedLayer tutorialLayer = new CachedLayer(screenWidth, screenHeight, false,
+			this::paintTutorialLayer);
+	private final CachedLayer gameOverLayer = new CachedLayer(screenWidth, screenHeight, true,
+			this::paintGameOverLayer);
+	private final CachedLayer levelWonLayer = new CachedLayer(screenWidth, screenHeight, true,
+			this::paintLevelWonLayer);
 
 	public GamePanel() {
+		// calculate game area size based on screen size
+		this.tileSize = Math.min(screenWidth / screenCols, screenHeight / screenRows);
+		this.gameAreaWidth = tileSize * screenCols;
+		this.gameAreaHeight = tileSize * screenRows;
+		this.gameAreaX = (screenWidth - gameAreaWidth) / 2;
+		this.gameAreaY = (screenHeight - gameAreaHeight) / 2;
+
 		// setup the panel size and color
 		setPreferredSize(new Dimension(screenWidth, screenHeight));
 		setBackground(Color.black);
@@ -94,14 +194,191 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		addMouseListener(this);
 		// MODIFIED: Added the mouse wheel listener to enable scrolling
 		addMouseWheelListener(this);
+		addInputWaker(this);
 		// allows panel to get keyboard input
 		setFocusable(true);
 
+		// draw straight to the screen from the game loop if asked to
+		if (Boolean.getBoolean("byterunner.activeRendering"))
+			enableActiveRendering();
+
 		// setup all game data
+		world = new GameWorld(screenCols, screenRows, tileSize, new Random().nextLong(), clock);
+		world.setProgressListener(this::saveProgress);
+		// draw the shop again when a skin picture has loaded
+		skinThumbnails.setReadyListener(this::wakeGameLoop);
 		initializeSkins();
+		setupLabels();
 		loadProgress();
-		initializeLevels();
+		// start reading the pictures a level needs while the menu is up
+		AssetManager.getShared().preload("player.png", "enemy.png", "heavy.png", getEquippedSkinPath());
 		setupMainMenuButtons();
+		setupScreenButtons();
+		setupGameOverButtons();
+	}
+
+	/**
+	 * puts a canvas over the panel that the game loop draws on directly. input
+	 * events from the canvas come back to this panel
+	 */
+	private void enableActiveRendering() {
+		ActiveRenderCanvas canvas = new ActiveRenderCanvas(screenWidth, screenHeight);
+		canvas.addKeyListener(this);
+		canvas.addMouseMotionListener(this);
+		canvas.addMouseListener(this);
+		canvas.addMouseWheelListener(this);
+		addInputWaker(canvas);
+		setLayout(new BorderLayout());
+		add(canvas, BorderLayout.CENTER);
+		activeCanvas = canvas;
+	}
+
+	/**
+	 * takes the canvas away and goes back to normal swing painting
+	 */
+	private void disableActiveRendering() {
+		ActiveRenderCanvas canvas = activeCanvas;
+		activeCanvas = null;
+		if (canvas == null)
+			return;
+		SwingUtilities.invokeLater(() -> {
+			remove(canvas);
+			revalidate();
+			requestFocusInWindow();
+			repaint();
+		});
+	}
+
+	/**
+	 * adds the input waker after the panels own listeners. swing calls
+	 * listeners in the order they were added so the loop is woken after the
+	 * panel has handled the event
+	 */
+	private void addInputWaker(Component component) {
+		component.addKeyListener(inputWaker);
+		component.addMouseListener(inputWaker);
+		component.addMouseMotionListener(inputWaker);
+		component.addMouseWheelListener(inputWaker);
+	}
+
+	// wakes the game loop for every key and mouse event
+	private class InputWaker extends MouseAdapter implements KeyListener {
+		@Override
+		public void keyPressed(KeyEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void keyReleased(KeyEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void keyTyped(KeyEvent e) {
+		}
+
+		@Override
+		public void mousePressed(MouseEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void mouseReleased(MouseEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void mouseMoved(MouseEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void mouseDragged(MouseEvent e) {
+			wakeGameLoop();
+		}
+
+		@Override
+		public void mouseWheelMoved(MouseWheelEvent e) {
+			wakeGameLoop();
+		}
+	}
+
+	/**
+	 * asks the game loop for a tick and a frame. needed when it is only drawing
+	 * on demand
+	 */
+	private void wakeGameLoop() {
+		GameLoop loop = gameLoop;
+		if (loop != null)
+			loop.wake();
+	}
+
+	/**
+	 * watches the window so the game can stop when it is minimized or in the
+	 * background
+	 */
+	@Override
+	public void addNotify() {
+		super.addNotify();
+		Window window = SwingUtilities.getWindowAncestor(this);
+		if (window == null)
+			return;
+		window.removeWindowListener(windowWatcher);
+		window.addWindowListener(windowWatcher);
+	}
+
+	private final WindowAdapter windowWatcher = new WindowAdapter() {
+		@Override
+		public void windowIconified(WindowEvent e) {
+			setWindowAway(true);
+		}
+
+		@Override
+		public void windowDeiconified(WindowEvent e) {
+			setWindowAway(false);
+		}
+
+		@Override
+		public void windowDeactivated(WindowEvent e) {
+			if (suspendWhenUnfocused)
+				setWindowAway(true);
+		}
+
+		@Override
+		public void windowActivated(WindowEvent e) {
+			setWindowAway(false);
+		}
+	};
+
+	/**
+	 * parks the game loop while the window is away and pauses a level being
+	 * played so nothing happens behind the players back. both go back to how
+	 * they were when the window comes back. runs on the event thread
+	 */
+	private void setWindowAway(boolean away) {
+		if (away == windowAway)
+			return;
+		windowAway = away;
+		if (away) {
+			if (currentState == GameState.IN_GAME && !clock.isPaused()) {
+				clock.setPaused(true);
+				autoPaused = true;
+			}
+		} else if (autoPaused) {
+			clock.setPaused(false);
+			autoPaused = false;
+		}
+		GameLoop loop = gameLoop;
+		if (loop != null)
+			loop.setSuspended(away);
+	}
+
+	/**
+	 * @return the component that should have keyboard focus
+	 */
+	private Component focusTarget() {
+		ActiveRenderCanvas canvas = activeCanvas;
+		return canvas != null ? canvas : this;
 	}
 
 	/**
@@ -117,8 +394,8 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		try (FileInputStream fis = new FileInputStream(saveFile)) {
 			// load data from file
 			props.load(fis);
-			this.highestLevelUnlocked = Integer.parseInt(props.getProperty("highestLevelUnlocked", "1"));
-			this.coins = Integer.parseInt(props.getProperty("coins", "0"));
+			world.unlockLevelsUpTo(Integer.parseInt(props.getProperty("highestLevelUnlocked", "1")));
+			world.setCoins(Integer.parseInt(props.getProperty("coins", "0")));
 			this.equippedSkinID = props.getProperty("equippedSkinID", "char_default");
 
 			// get which skins are unlocked
@@ -141,8 +418,8 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	private void saveProgress() {
 		Properties props = new Properties();
 		// put data into properties object
-		props.setProperty("highestLevelUnlocked", String.valueOf(this.highestLevelUnlocked));
-		props.setProperty("coins", String.valueOf(this.coins));
+		props.setProperty("highestLevelUnlocked", String.valueOf(world.getHighestLevelUnlocked()));
+		props.setProperty("coins", String.valueOf(world.getCoins()));
 		props.setProperty("equippedSkinID", String.valueOf(this.equippedSkinID));
 
 		// make a comma separated list of unlocked skins
@@ -158,6 +435,41 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		}
 	}
 
+	/**
+	 * makes the labels for the shop and gives the coin amounts a drawn coin
+	 * instead of an emoji, which most fonts dont have
+	 */
+	private void setupLabels() {
+		BufferedImage bigCoin = makeCoinIcon(22);
+		menuCoinLabel.setIcon(bigCoin, 8);
+		shopCoinLabel.setIcon(bigCoin, 8);
+		BufferedImage smallCoin = makeCoinIcon(12);
+		skinNameLabels = new TextLabel[characterSkins.size()];
+		skinPriceLabels = new TextLabel[characterSkins.size()];
+		for (int i = 0; i < characterSkins.size(); i++) {
+			CharacterSkin skin = characterSkins.get(i);
+			skinNameLabels[i] = new TextLabel(textFont, Color.WHITE, skin.getName());
+			skinPriceLabels[i] = new TextLabel(textFont, Color.YELLOW, String.valueOf(skin.getPrice()));
+			skinPriceLabels[i].setIcon(smallCoin, 5);
+		}
+	}
+
+	/**
+	 * draws a gold coin picture
+	 */
+	private static BufferedImage makeCoinIcon(int size) {
+		BufferedImage coin = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = coin.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		g2.setColor(new Color(200, 140, 0));
+		g2.fillOval(0, 0, size - 1, size - 1);
+		g2.setColor(Color.YELLOW);
+		int inset = Math.max(2, size / 6);
+		g2.fillOval(inset, inset, size - 1 - inset * 2, size - 1 - inset * 2);
+		g2.dispose();
+		return coin;
+	}
+
 	/**
 	 * creates all the character skins and adds them to a list
 	 */
@@ -195,60 +507,25 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	}
 
 	/**
-	 * creates all the levels in the game each level has a number of floors and a
-	 * time limit
+	 * starts a level with the equipped skin and switches to the game screen. runs
+	 * on the game thread
 	 */
-	private void initializeLevels() {
-		int baseTime = 120;
-		int numFloors = 2;
-		// master random generator for all levels
-		Random seedGenerator = new Random();
-
-		// create 20 levels
-		for (int i = 1; i <= 20; i++) {
-			// every 2 levels add another floor
-			if (i > 1 && (i - 1) % 2 == 0) {
-				numFloors++;
-				baseTime += 0;
-			}
-			// give each level a unique seed for generation
-			long levelSeed = seedGenerator.nextLong();
-			levels.add(new Level(i, numFloors, baseTime, i <= highestLevelUnlocked, levelSeed));
-		}
+	private void startLevel(int levelNumber) {
+		world.startLevel(levelNumber, getEquippedSkinPath());
+		// change game state to playing
+		currentState = GameState.IN_GAME;
 	}
 
 	/**
-	 * sets up and starts a specific level clears old data and creates new floors
-	 * and player
+	 * @return the picture for the equipped skin or null if it isnt known
 	 */
-	private void startLevel(int levelNumber) {
-		activeLevelNumber = levelNumber;
-		Level level = levels.get(levelNumber - 1);
-		// clear old level data
-		floors.clear();
-		bullets.clear();
-		currentFloorIndex = 0;
-		// set timer for the level
-		levelTimeRemaining = level.getTimeLimitInSeconds() * 1000L;
-		lastSecondUpdateTime = System.nanoTime();
-
-		// create all floors for the level
-		for (int i = 0; i < level.getNumberOfFloors(); i++) {
-			long floorSeed = level.getSeed() + i;
-			floors.add(new Floor(screenCols, screenRows, i, tileSize, floorSeed));
+	private String getEquippedSkinPath() {
+		String skinID = equippedSkinID;
+		for (CharacterSkin skin : characterSkins) {
+			if (skin.getId().equals(skinID))
+				return skin.getImagePath();
 		}
-
-		// create a new player at the start position
-		Floor startFloor = floors.get(0);
-		player = new Player(startFloor.getStartX() * tileSize + tileSize / 2.0,
-				startFloor.getStartY() * tileSize + tileSize / 2.0);
-
-		// load the equipped skin for the player
-		characterSkins.stream().filter(s -> s.getId().equals(equippedSkinID)).findFirst()
-				.ifPresent(s -> player.loadSkin(s.getImagePath()));
-
-		// change game state to playing
-		currentState = GameState.IN_GAME;
+		return null;
 	}
 
 	/**
@@ -260,212 +537,241 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	}
 
 	/**
-	 * the main game loop runs 60 times per second to update and draw the game
+	 * the main game loop runs a fixed number of updates per second and draws the
+	 * game, sleeping in between instead of spinning
 	 */
 	@Override
 	public void run() {
-		// calculate game area size based on screen size
-		this.tileSize = Math.min(screenWidth / screenCols, screenHeight / screenRows);
-		this.gameAreaWidth = tileSize * screenCols;
-		this.gameAreaHeight = tileSize * screenRows;
-		this.gameAreaX = (screenWidth - gameAreaWidth) / 2;
-		this.gameAreaY = (screenHeight - gameAreaHeight) / 2;
+		// run the loop on this thread until it is stopped
+		GameLoop loop = new GameLoop(this, clock, framesPerSecond, maxCatchUpTicks, separateRenderThread);
+		loop.setSuspended(windowAway);
+		gameLoop = loop;
+		loop.run();
+	}
+
+	/**
+	 * stops the game loop
+	 */
+	public void stopGameThread() {
+		if (gameLoop != null)
+			gameLoop.stop();
+		gameThread = null;
+	}
 
-		// game loop timing variables
-		double drawInterval = 1000000000.0 / 60.0;
-		double delta = 0;
-		long lastTime = System.nanoTime();
-
-		// game loop
-		while (gameThread != null) {
-			long currentTime = System.nanoTime();
-			delta += (currentTime - lastTime) / drawInterval;
-			lastTime = currentTime;
-			// if enough time has passed update and draw
-			if (delta >= 1) {
-				update();
-				repaint();
-				delta--;
+	/**
+	 * called by the game loop once per fixed step
+	 */
+	@Override
+	public void tick() {
+		long start = System.nanoTime();
+		update();
+		perfOverlay.recordUpdate(System.nanoTime() - start);
+		// menus and paused levels dont change by themselves so only draw them
+		// when input comes in
+		GameLoop loop = gameLoop;
+		if (loop != null)
+			loop.setOnDemand(currentState != GameState.IN_GAME || world.isPaused() || clock.isPaused());
+	}
+
+	/**
+	 * called by the game loop when a new frame should be drawn
+	 */
+	@Override
+	public void render() {
+		ActiveRenderCanvas canvas = activeCanvas;
+		if (canvas != null) {
+			// only the level is copied into snapshots. menus read the buttons
+			// and shop straight from the fields the event thread changes, so
+			// they are drawn on the event thread the same as swing painting
+			if (currentState != GameState.IN_GAME) {
+				if (!menuFrameQueued.getAndSet(true)) {
+					SwingUtilities.invokeLater(() -> {
+						menuFrameQueued.set(false);
+						renderActive(canvas);
+					});
+				}
+				return;
 			}
+			renderActive(canvas);
+			return;
 		}
+		repaint();
+	}
+
+	/**
+	 * draws one frame straight to the screen through the canvas
+	 */
+	private void renderActive(ActiveRenderCanvas canvas) {
+		if (canvas.renderFrame(this::drawFrame))
+			return;
+		// if active rendering cant work here go back to swing
+		if (canvas.hasFailed())
+			disableActiveRendering();
 	}
 
 	/**
-	 * updates all game logic moves player enemies bullets and checks for game over
+	 * handles all the input that came in since the last tick, then moves the game
+	 * forward one tick while a level is being played and switches screens when the
+	 * level is won or lost
 	 */
 	public void update() {
-		// dont update if not in game or paused
-		if (currentState != GameState.IN_GAME || isGamePaused)
+		// apply input first so every tick sees all input that arrived before it
+		inputQueue.drain(inputHandler);
+
+		// dont update if not in game
+		if (currentState != GameState.IN_GAME)
 			return;
 
-		// check for game over condition
-		if (player.health <= 0 || levelTimeRemaining <= 0) {
+		// point the player toward the mouse
+		world.aim(Math.atan2(aimY - (gameAreaY + gameAreaHeight / 2.0), aimX - (gameAreaX + gameAreaWidth / 2.0)));
+		// only move the world if the clock isnt paused
+		boolean moved = clock.shouldAdvance() && world.tick();
+
+		// check if the level is over
+		switch (world.getOutcome()) {
+		case LOST -> {
 			currentState = GameState.GAME_OVER;
-			setupGameOverButtons();
-			return;
+			// the level is frozen from now on so stop blending between ticks
+			moved = false;
 		}
-
-		// update timer every second
-		if (System.nanoTime() - lastSecondUpdateTime >= 1000000000) {
-			levelTimeRemaining -= 1000;
-			lastSecondUpdateTime = System.nanoTime();
+		case WON -> {
+			currentState = GameState.LEVEL_WON;
+			moved = false;
+		}
+		default -> {
 		}
-
-		Floor currentFloor = floors.get(currentFloorIndex);
-		// update player and point them toward mouse
-		player.update(currentFloor, tileSize);
-		player.setFacingAngle(Math.atan2(mouseY - (gameAreaY + gameAreaHeight / 2.0), mouseX - (gameAreaX + gameAreaWidth / 2.0)));
-
-		// update all enemies on the current floor
-		Iterator<Enemy> enemyIterator = currentFloor.enemies.iterator();
-		while (enemyIterator.hasNext()) {
-			Enemy enemy = enemyIterator.next();
-			// if enemy is dead remove it and give coins
-			if (enemy.health <= 0) {
-				enemyIterator.remove();
-				coins += 10;
-				saveProgress();
-				continue;
-			}
-			enemy.update(player, currentFloor, tileSize, bullets);
 		}
 
-		// update bullets and check for teleporting
-		updateBullets(currentFloor);
-		teleportPlayer(currentFloor);
+		// hand a copy of this tick over to the drawing code
+		publishSnapshot(moved);
 	}
 
 	/**
-	 * checks if player is on a teleporter tile moves player between floors or wins
-	 * the level
+	 * applies one input command to the world. runs on the game thread while the
+	 * input queue is drained
 	 */
-	private void teleportPlayer(Floor currentFloor) {
-		int px = (int) (player.x / tileSize);
-		int py = (int) (player.y / tileSize);
-
-		// only teleport if cooldown is over
-		if (System.currentTimeMillis() - lastTeleportTime > TELEPORTER_COOLDOWN) {
-			// if on an UP teleporter
-			if (currentFloor.getTile(px, py) == Floor.UP) {
-				// cant use if computer isnt hacked
-				if (!currentFloor.isComputerHacked())
-					return;
-
-				// if this is the last floor player wins
-				if (currentFloorIndex == floors.size() - 1) {
-					currentState = GameState.LEVEL_WON;
-					coins += 20;
-					// unlock next level if this was the latest one
-					if (activeLevelNumber == highestLevelUnlocked && highestLevelUnlocked < levels.size()) {
-						highestLevelUnlocked++;
-						levels.get(highestLevelUnlocked - 1).setUnlocked(true);
-					}
-					saveProgress();
-					menuButton = new Rectangle((screenWidth - 350) / 2, 300, 350, 50);
-					return;
-				}
-
-				// move to the next floor
-				currentFloorIndex++;
-				Floor newFloor = floors.get(currentFloorIndex);
-				player.setPosition(newFloor.getLinkedDownX() * tileSize + tileSize / 2.0,
-						newFloor.getLinkedDownY() * tileSize + tileSize / 2.0);
-				lastTeleportTime = System.currentTimeMillis();
-
-				// if on a DOWN teleporter
-			} else if (currentFloor.getTile(px, py) == Floor.DOWN && currentFloorIndex > 0) {
-				// move to the previous floor
-				currentFloorIndex--;
-				Floor newFloor = floors.get(currentFloorIndex);
-				player.setPosition(newFloor.getLinkedUpX() * tileSize + tileSize / 2.0,
-						newFloor.getLinkedUpY() * tileSize + tileSize / 2.0);
-				lastTeleportTime = System.currentTimeMillis();
+	private void handleInput(int type, int a, int b, long timeNanos) {
+		switch (type) {
+		case InputQueue.MOVE_START -> world.setMoving(DIRECTIONS[a], true);
+		case InputQueue.MOVE_STOP -> world.setMoving(DIRECTIONS[a], false);
+		case InputQueue.AIM -> {
+			aimX = a;
+			aimY = b;
+		}
+		case InputQueue.SHOOT -> world.shoot();
+		case InputQueue.RELOAD -> world.reload();
+		case InputQueue.INTERACT -> interact();
+		case InputQueue.HACK_DONE -> {
+			if (hackingFloor != null) {
+				world.finishHack(hackingFloor, a == 1, b == 1);
+				hackingFloor = null;
 			}
 		}
+		case InputQueue.START_LEVEL -> startLevel(a);
+		case InputQueue.PICK_SKIN -> pickSkin(characterSkins.get(a));
+		}
 	}
 
 	/**
-	 * updates all bullets moves them and checks for collisions with walls enemies
-	 * or player
+	 * equips a skin from the shop, buying it first if it is still locked and
+	 * there are enough coins. runs on the game thread
 	 */
-	private void updateBullets(Floor currentFloor) {
-		Iterator<Bullet> bulletIterator = bullets.iterator();
-		while (bulletIterator.hasNext()) {
-			Bullet bullet = bulletIterator.next();
-			bullet.update();
-			int tileX = (int) (bullet.x / tileSize);
-			int tileY = (int) (bullet.y / tileSize);
-
-			// if bullet hits a wall remove it
-			if (!currentFloor.isWalkable(tileX, tileY)) {
-				bulletIterator.remove();
-				continue;
-			}
+	private void pickSkin(CharacterSkin skin) {
+		// if have enough coins buy it
+		if (!skin.isUnlocked()) {
+			if (!world.spendCoins(skin.getPrice()))
+				return;
+			skin.setUnlocked(true);
+		}
+		equippedSkinID = skin.getId();
+		AssetManager.getShared().preload(skin.getImagePath());
+		saveProgress();
+	}
 
-			// if its a player bullet check for hitting enemies
-			if (bullet.isPlayerBullet) {
-				for (Enemy enemy : currentFloor.enemies) {
-					if (bullet.getBounds().intersects(enemy.getBounds())) {
-						enemy.takeDamage(1);
-						bulletIterator.remove();
-						break;
-					}
-				}
-				// if its an enemy bullet check for hitting player
-			} else {
-				if (bullet.getBounds().intersects(player.getBounds()) && !player.isInvincible) {
-					player.takeDamage(1);
-					bulletIterator.remove();
-				}
-			}
+	/**
+	 * copies everything the drawing code needs out of the live game objects into
+	 * the next render snapshot and publishes it
+	 * @param moved false if the world didnt tick. everything is then drawn
+	 *        standing still instead of blending toward old positions
+	 */
+	private void publishSnapshot(boolean moved) {
+		RenderSnapshot snap = snapshots.beginWrite();
+		Player player = world.getPlayer();
+		Floor currentFloor = world.getCurrentFloor();
+		snap.floor = currentFloor;
+		snap.tickNanos = gameLoop != null ? gameLoop.getScaledTickNanos() : 0;
+
+		// player and hud
+		snap.playerX = player.x;
+		snap.playerY = player.y;
+		snap.playerPrevX = moved ? player.prevX : player.x;
+		snap.playerPrevY = moved ? player.prevY : player.y;
+		snap.playerAngle = player.getFacingAngle();
+		snap.playerVisible = player.isVisible(clock.millis());
+		snap.playerImage = player.getImage();
+		snap.health = player.health;
+		snap.maxHealth = player.maxHealth;
+		snap.ammo = player.ammo;
+		snap.maxAmmo = player.maxAmmo;
+		snap.reloading = player.isReloading;
+		snap.levelTimeRemaining = world.getLevelTimeRemaining();
+		snap.floorNumber = world.getCurrentFloorIndex() + 1;
+		snap.floorCount = world.getFloors().size();
+
+		// enemies
+		int enemyCount = currentFloor.enemies.size();
+		snap.ensureEnemyCapacity(enemyCount);
+		for (int i = 0; i < enemyCount; i++) {
+			Enemy enemy = currentFloor.enemies.get(i);
+			snap.enemyX[i] = enemy.x;
+			snap.enemyY[i] = enemy.y;
+			snap.enemyPrevX[i] = moved ? enemy.prevX : enemy.x;
+			snap.enemyPrevY[i] = moved ? enemy.prevY : enemy.y;
+			snap.enemyAngle[i] = enemy.getFacingAngle();
+			snap.enemyHealth[i] = enemy.getHealthBarFraction();
+			snap.enemyImage[i] = enemy.getImage();
 		}
+		snap.enemyCount = enemyCount;
+
+		// bullets
+		// the pool is already in arrays so just copy them across
+		BulletPool bullets = world.getBullets();
+		int bulletCount = bullets.size();
+		snap.ensureBulletCapacity(bulletCount);
+		System.arraycopy(bullets.x, 0, snap.bulletX, 0, bulletCount);
+		System.arraycopy(bullets.y, 0, snap.bulletY, 0, bulletCount);
+		System.arraycopy(moved ? bullets.prevX : bullets.x, 0, snap.bulletPrevX, 0, bulletCount);
+		System.arraycopy(moved ? bullets.prevY : bullets.y, 0, snap.bulletPrevY, 0, bulletCount);
+		System.arraycopy(bullets.isPlayer, 0, snap.bulletIsPlayer, 0, bulletCount);
+		snap.bulletCount = bulletCount;
+
+		snap.publishNanos = System.nanoTime();
+		snapshots.publish();
 	}
 
 	/**
-	 * checks for a computer terminal nearby and starts the minigame
+	 * asks the world for a computer next to the player and opens the hacking
+	 * minigame if there is one. runs on the game thread
 	 */
 	private void interact() {
-		int px = (int) (player.x / tileSize);
-		int py = (int) (player.y / tileSize);
-		Floor currentFloor = floors.get(currentFloorIndex);
-
-		// check all tiles around the player
-		for (int i = -1; i <= 1; i++) {
-			for (int j = -1; j <= 1; j++) {
-				if (i == 0 && j == 0)
-					continue;
-
-				// if a computer is found
-				if (currentFloor.getTile(px + i, py + j) == Floor.COMPUTER) {
-					// dont interact if already hacked or on cooldown
-					if (currentFloor.isComputerHacked()
-							|| System.currentTimeMillis() < currentFloor.getComputerCooldownTime())
-						return;
-
-					// pause the game and open the minigame window
-					isGamePaused = true;
-					JFrame topFrame = (JFrame) SwingUtilities.getWindowAncestor(this);
-					MiniGameDialog miniGameDialog = new MiniGameDialog(topFrame, (win) -> {
-						// this code runs after minigame is closed
-						if (win) {
-							currentFloor.setComputerHacked(true);
-							coins += 5;
-							saveProgress();
-						} else {
-							// if player loses snake game start cooldown
-							if (MiniGameDialog.lastGameWasSnake) {
-								currentFloor.setComputerCooldownTime(System.currentTimeMillis() + 5000);
-							}
-						}
-						// unpause the game
-						isGamePaused = false;
-						this.requestFocusInWindow();
-					});
-					miniGameDialog.setVisible(true);
-					return;
-				}
-			}
-		}
+		Floor terminalFloor = world.interact();
+		if (terminalFloor == null)
+			return;
+		hackingFloor = terminalFloor;
+
+		// open the minigame window on the event thread. the world stays paused until it closes
+		SwingUtilities.invokeLater(() -> {
+			JFrame topFrame = (JFrame) SwingUtilities.getWindowAncestor(this);
+			MiniGameDialog miniGameDialog = new MiniGameDialog(topFrame, (win) -> {
+				// this code runs after minigame is closed
+				// if player loses snake game start cooldown
+				inputQueue.push(InputQueue.HACK_DONE, win ? 1 : 0, MiniGameDialog.lastGameWasSnake ? 1 : 0);
+				// the loop is on demand while the world waits so wake it now
+				wakeGameLoop();
+				focusTarget().requestFocusInWindow();
+			});
+			miniGameDialog.setVisible(true);
+		});
 	}
 
 	/**
@@ -474,10 +780,71 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	@Override
 	public void paintComponent(Graphics g) {
 		super.paintComponent(g);
-		Graphics2D g2 = (Graphics2D) g;
-		// make graphics look smooth
-		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+		// the canvas is covering us so theres nothing to paint
+		if (activeCanvas != null)
+			return;
+		drawFrame((Graphics2D) g);
+	}
+
+	/**
+	 * draws one whole frame for the current game state. used by both swing
+	 * painting and active rendering
+	 */
+	private void drawFrame(Graphics2D g2) {
+		long start = System.nanoTime();
+		perfOverlay.frameStarted(start);
+		RenderQuality quality = qualityGovernor.getQuality();
+		if (quality != paintedQuality) {
+			// the grid smoothing and size are baked into the cached screens
+			updateLayers(getRenderScale(quality));
+			paintedQuality = quality;
+			perfOverlay.setRenderQuality(quality, qualityGovernor.isAdaptive());
+		}
 
+		if (getRenderScale(quality) < 1) {
+			// draw a smaller frame and stretch it over the window
+			drawScaledScene(g2, quality);
+		} else {
+			quality.apply(g2);
+			drawScene(g2);
+		}
+
+		// draw the debug hud on top of everything
+		perfOverlay.draw(g2, 8, gameAreaY + 50);
+		qualityGovernor.frameDrawn(System.nanoTime() - start);
+	}
+
+	/**
+	 * draws the current screen into the smaller frame and stretches it onto g2
+	 */
+	private void drawScaledScene(Graphics2D g2, RenderQuality quality) {
+		double scale = getRenderScale(quality);
+		int width = (int) Math.ceil(screenWidth * scale);
+		int height = (int) Math.ceil(screenHeight * scale);
+		GraphicsConfiguration config = g2.getDeviceConfiguration();
+		if (scaledFrame == null || scaledFrame.getWidth() != width || scaledFrame.getHeight() != height
+				|| scaledFrame.validate(config) == VolatileImage.IMAGE_INCOMPATIBLE) {
+			if (scaledFrame != null)
+				scaledFrame.flush();
+			scaledFrame = config.createCompatibleVolatileImage(width, height);
+		}
+		Graphics2D frame = scaledFrame.createGraphics();
+		quality.apply(frame);
+		frame.scale(scale, scale);
+		drawScene(frame);
+		frame.dispose();
+		// if the video memory was lost while drawing this frame is just skipped
+		if (scaledFrame.contentsLost())
+			return;
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, quality.interpolation);
+		g2.drawImage(scaledFrame, 0, 0, screenWidth, screenHeight, 0, 0, width, height, null);
+		quality.apply(g2);
+	}
+
+	/**
+	 * draws the screen for the current game state
+	 */
+	private void drawScene(Graphics2D g2) {
 		// choose what to draw
 		switch (currentState) {
 		case MAIN_MENU -> drawMainMenu(g2);
@@ -490,6 +857,26 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		}
 	}
 
+	/**
+	 * how small the frame is drawn. the software renderer always draws the world
+	 * at full size so it doesnt use a smaller frame
+	 */
+	private double getRenderScale(RenderQuality quality) {
+		return softwareRenderer != null ? 1.0 : quality.renderScale;
+	}
+
+	/**
+	 * makes every cached screen paint itself again at the given size next time
+	 * it is drawn
+	 */
+	private void updateLayers(double scale) {
+		for (CachedLayer layer : new CachedLayer[] { mainMenuLayer, scanlineLayer, gameBackgroundLayer,
+				levelSelectLayer, tutorialLayer, gameOverLayer, levelWonLayer }) {
+			layer.setScale(scale);
+			layer.invalidate();
+		}
+	}
+
 	/**
 	 * draws a string centered horizontally on the screen
 	 */
@@ -515,10 +902,32 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	 * draws the main menu screen with title and buttons
 	 */
 	private void drawMainMenu(Graphics2D g2) {
+		// draw background grid and title
+		mainMenuLayer.draw(g2, 0);
+
+		// draw buttons
+		drawHoverButton(g2, "Play", playButton);
+		drawHoverButton(g2, "Item Shop", shopButton);
+		drawHoverButton(g2, "Tutorial", tutorialButton);
+		drawHoverButton(g2, "Exit", exitButton);
+
+		// draw coin amount
+		int coins = world.getCoins();
+		if (menuCoinLabel.changed(coins))
+			menuCoinLabel.setText(String.valueOf(coins));
+		menuCoinLabel.draw(g2, 20, 40);
+
+		// draw old tv scanline effect
+		if (paintedQuality.scanlines)
+			scanlineLayer.draw(g2, 0);
+	}
+
+	/**
+	 * paints the parts of the main menu that never change
+	 */
+	private void paintMainMenuLayer(Graphics2D g2) {
 		// draw background
-		g2.setColor(Color.BLACK);
-		g2.fillRect(0, 0, screenWidth, screenHeight);
-		drawBackgroundGrid(g2);
+		drawBackgroundGrid(g2, MENU_GRID_COLOR);
 
 		// draw title with a glow effect
 		g2.setFont(titleFont);
@@ -528,7 +937,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		int titleY = 200;
 
 		// draw the glow
-		g2.setColor(new Color(0, 255, 255, 60));
+		g2.setColor(TITLE_GLOW_COLOR);
 		g2.drawString(titleText, titleX + 3, titleY + 3);
 		g2.drawString(titleText, titleX - 3, titleY + 3);
 		g2.drawString(titleText, titleX + 3, titleY - 3);
@@ -537,21 +946,13 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		// draw the main text
 		g2.setColor(Color.CYAN);
 		g2.drawString(titleText, titleX, titleY);
+	}
 
-		// draw buttons
-		drawHoverButton(g2, "Play", playButton);
-		drawHoverButton(g2, "Item Shop", shopButton);
-		drawHoverButton(g2, "Tutorial", tutorialButton);
-		drawHoverButton(g2, "Exit", exitButton);
-
-		// draw coin amount
-		String coinText = "💰 " + coins;
-		g2.setFont(buttonFont);
-		g2.setColor(Color.YELLOW);
-		g2.drawString(coinText, 20, 40);
-
-		// draw old tv scanline effect
-		g2.setColor(new Color(0, 0, 0, 70));
+	/**
+	 * paints the old tv lines that go over the main menu
+	 */
+	private void paintScanlines(Graphics2D g2) {
+		g2.setColor(SCANLINE_COLOR);
 		for (int i = 0; i < screenHeight; i += 3) {
 			g2.fillRect(0, i, screenWidth, 1);
 		}
@@ -573,7 +974,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		} else {
 			// draw white outline button
 			g2.setColor(Color.WHITE);
-			g2.setStroke(new BasicStroke(2));
+			g2.setStroke(BUTTON_STROKE);
 			g2.draw(button);
 			g2.setColor(Color.WHITE);
 			drawCenteredStringInRect(g2, text, buttonFont, button);
@@ -596,44 +997,57 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	}
 
 	/**
-	 * draws the level selection screen with a grid of level buttons
+	 * creates the rectangles for the level select buttons and the back buttons
+	 * of the other screens
 	 */
-	private void drawLevelSelect(Graphics2D g2) {
-		// draw background and title
-		g2.setColor(Color.BLACK);
-		g2.fillRect(0, 0, screenWidth, screenHeight);
-		g2.setColor(Color.GREEN);
-		drawCenteredString(g2, "Select Level", new Font("Monospaced", Font.BOLD, 72), 100);
-
-		// setup button grid
+	private void setupScreenButtons() {
 		levelButtons.clear();
 		int buttonWidth = 200, buttonHeight = 60;
 		int padding = 20;
 		int startX = (screenWidth - (5 * buttonWidth + 4 * padding)) / 2;
 		int startY = 200;
-
-		// draw each level button
-		for (int i = 0; i < levels.size(); i++) {
-			Level level = levels.get(i);
+		for (int i = 0; i < world.getLevels().size(); i++) {
 			int col = i % 5;
 			int row = i / 5;
 			int x = startX + col * (buttonWidth + padding);
 			int y = startY + row * (buttonHeight + padding);
+			levelButtons.add(new Rectangle(x, y, buttonWidth, buttonHeight));
+		}
+
+		backButton = new Rectangle((screenWidth - 250) / 2, screenHeight - 100, 250, 50);
+		shopBackButton = new Rectangle((screenWidth - 250) / 2, screenHeight - 80, 250, 50);
+		levelWonButton = new Rectangle((screenWidth - 350) / 2, 300, 350, 50);
+	}
 
-			Rectangle button = new Rectangle(x, y, buttonWidth, buttonHeight);
-			levelButtons.add(button);
+	/**
+	 * draws the level selection screen with a grid of level buttons. it only
+	 * changes when a level is unlocked
+	 */
+	private void drawLevelSelect(Graphics2D g2) {
+		levelSelectLayer.draw(g2, world.getHighestLevelUnlocked());
+	}
+
+	private void paintLevelSelectLayer(Graphics2D g2) {
+		// draw background and title
+		g2.setColor(Color.BLACK);
+		g2.fillRect(0, 0, screenWidth, screenHeight);
+		g2.setColor(Color.GREEN);
+		drawCenteredString(g2, "Select Level", headingFont, 100);
 
+		// draw each level button
+		ArrayList<Level> levels = world.getLevels();
+		for (int i = 0; i < levels.size(); i++) {
+			Rectangle button = levelButtons.get(i);
 			// locked levels are gray
-			g2.setColor(level.isUnlocked() ? Color.WHITE : Color.DARK_GRAY);
+			g2.setColor(levels.get(i).isUnlocked() ? Color.WHITE : Color.DARK_GRAY);
 			g2.draw(button);
 			drawCenteredStringInRect(g2, "Level " + (i + 1), buttonFont, button);
 		}
 
 		// draw back button
-		menuButton = new Rectangle((screenWidth - 250) / 2, screenHeight - 100, 250, 50);
 		g2.setColor(Color.WHITE);
-		g2.draw(menuButton);
-		drawCenteredStringInRect(g2, "Main Menu", buttonFont, menuButton);
+		g2.draw(backButton);
+		drawCenteredStringInRect(g2, "Main Menu", buttonFont, backButton);
 	}
 
 	/**
@@ -644,101 +1058,126 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		g2.setColor(Color.BLACK);
 		g2.fillRect(0, 0, screenWidth, screenHeight);
 		g2.setColor(Color.MAGENTA);
-		drawCenteredString(g2, "Item Shop", new Font("Monospaced", Font.BOLD, 72), 80);
+		drawCenteredString(g2, "Item Shop", headingFont, 80);
 
 		// draw coin amount
-		String coinText = "💰 " + coins;
-		g2.setFont(buttonFont);
-		g2.setColor(Color.YELLOW);
-		FontMetrics fm = g2.getFontMetrics();
-		g2.drawString(coinText, screenWidth - fm.stringWidth(coinText) - 20, 55);
-
-		// setup item grid
-		shopItemButtons.clear();
-		int gridCols = 6;
-		int itemWidth = 160;
-		int itemHeight = 180;
-		int hPadding = 30;
-		int vPadding = 20;
-		int totalGridWidth = gridCols * itemWidth + (gridCols - 1) * hPadding;
-		int startX = (screenWidth - totalGridWidth) / 2;
-		int startY = 120;
-		
+		int coins = world.getCoins();
+		if (shopCoinLabel.changed(coins))
+			shopCoinLabel.setText(String.valueOf(coins));
+		shopCoinLabel.drawRightAligned(g2, screenWidth - 20, 55);
+
 		// NEW: Add a hint to let the user know they can scroll
         g2.setColor(Color.LIGHT_GRAY);
         g2.setFont(textFont);
-        drawCenteredString(g2, "Use the mouse wheel to scroll", textFont, startY - 15);
+        drawCenteredString(g2, "Use the mouse wheel to scroll", textFont, SHOP_START_Y - 15);
+
+		// only the rows that can be seen are drawn. the row after them has its
+		// picture started early so it is ready when scrolled to
+		int startX = getShopStartX();
+		int rowHeight = SHOP_ITEM_HEIGHT + SHOP_V_PADDING;
+		int firstRow = Math.max(0, (shopScrollY - SHOP_ITEM_HEIGHT) / rowHeight);
+		int lastRow = (shopScrollY + screenHeight - SHOP_START_Y) / rowHeight;
+		int firstItem = firstRow * SHOP_COLUMNS;
+		int lastItem = Math.min(characterSkins.size() - 1, (lastRow + 1) * SHOP_COLUMNS - 1);
+		for (int i = lastItem + 1; i < Math.min(characterSkins.size(), lastItem + 1 + SHOP_COLUMNS); i++)
+			skinThumbnails.get(characterSkins.get(i).getImagePath());
 
 		// draw each shop item
-		for (int i = 0; i < characterSkins.size(); i++) {
+		Rectangle itemBox = new Rectangle(0, 0, SHOP_ITEM_WIDTH, SHOP_ITEM_HEIGHT);
+		Rectangle textBox = new Rectangle(0, 0, SHOP_ITEM_WIDTH, 40);
+		for (int i = firstItem; i <= lastItem; i++) {
 			CharacterSkin skin = characterSkins.get(i);
-			int col = i % gridCols;
-			int row = i / gridCols;
-			int x = startX + col * (itemWidth + hPadding);
-			// MODIFIED: The Y position is now offset by the scroll amount
-			int y = startY + row * (itemHeight + vPadding) - shopScrollY;
-			
+			int x = startX + (i % SHOP_COLUMNS) * (SHOP_ITEM_WIDTH + SHOP_H_PADDING);
+			int y = SHOP_START_Y + (i / SHOP_COLUMNS) * rowHeight - shopScrollY;
 			// Only draw items that are visible on the screen
-            if (y > screenHeight || y + itemHeight < startY) {
-                // Add a placeholder rectangle for click detection to work correctly even for off-screen items
-                shopItemButtons.add(new Rectangle(x, y, itemWidth, itemHeight));
-                continue;
-            }
-
-			Rectangle itemBox = new Rectangle(x, y, itemWidth, itemHeight);
-			shopItemButtons.add(itemBox);
+			if (y > screenHeight || y + SHOP_ITEM_HEIGHT < SHOP_START_Y)
+				continue;
+			itemBox.setLocation(x, y);
 
 			// draw item box
-			g2.setColor(new Color(40, 40, 40));
+			g2.setColor(SHOP_ITEM_COLOR);
 			g2.fill(itemBox);
 			g2.setColor(Color.MAGENTA);
 			g2.draw(itemBox);
 
-			// draw skin preview image
-			Image previewImg = skin.getPreviewImage();
+			// draw skin preview image or a grey box until it has loaded
+			Image previewImg = skinThumbnails.get(skin.getImagePath());
+			int previewX = x + (SHOP_ITEM_WIDTH - SHOP_PREVIEW_SIZE) / 2;
 			if (previewImg != null) {
-				g2.drawImage(previewImg, x + 40, y + 20, itemWidth - 80, 80, null);
+				g2.drawImage(previewImg, previewX, y + 20, null);
+			} else {
+				g2.setColor(SHOP_PLACEHOLDER_COLOR);
+				g2.fillRect(previewX, y + 20, SHOP_PREVIEW_SIZE, SHOP_PREVIEW_SIZE);
 			}
 
 			// draw skin name
-			g2.setColor(Color.WHITE);
-			drawCenteredStringInRect(g2, skin.getName(), textFont, new Rectangle(x, y + 100, itemWidth, 40));
+			textBox.setLocation(x, y + 100);
+			skinNameLabels[i].drawCenteredIn(g2, textBox);
 
 			// draw owned text or price
+			textBox.setLocation(x, y + 135);
 			if (skin.isUnlocked()) {
-				g2.setColor(Color.GREEN);
-				drawCenteredStringInRect(g2, "Owned", smallFont, new Rectangle(x, y + 135, itemWidth, 40));
+				ownedLabel.drawCenteredIn(g2, textBox);
 			} else {
-				g2.setColor(Color.YELLOW);
-				drawCenteredStringInRect(g2, "💰 " + skin.getPrice(), textFont,
-						new Rectangle(x, y + 135, itemWidth, 40));
+				skinPriceLabels[i].drawCenteredIn(g2, textBox);
 			}
 
 			// draw a green border around the equipped skin
 			if (skin.getId().equals(equippedSkinID)) {
 				g2.setColor(Color.GREEN);
-				g2.setStroke(new BasicStroke(3));
+				g2.setStroke(SELECTED_STROKE);
 				g2.draw(itemBox);
-				g2.setStroke(new BasicStroke(1));
+				g2.setStroke(THIN_STROKE);
 			}
 		}
 
 		// draw back button
-		menuButton = new Rectangle((screenWidth - 250) / 2, screenHeight - 80, 250, 50);
 		g2.setColor(Color.WHITE);
-		g2.draw(menuButton);
-		drawCenteredStringInRect(g2, "Main Menu", buttonFont, menuButton);
+		g2.draw(shopBackButton);
+		drawCenteredStringInRect(g2, "Main Menu", buttonFont, shopBackButton);
+	}
+
+	/**
+	 * @return the x position of the first column of the shop grid
+	 */
+	private int getShopStartX() {
+		int totalGridWidth = SHOP_COLUMNS * SHOP_ITEM_WIDTH + (SHOP_COLUMNS - 1) * SHOP_H_PADDING;
+		return (screenWidth - totalGridWidth) / 2;
+	}
+
+	/**
+	 * works out which shop item is under a point from the grid layout
+	 * @return the index of the skin or -1 if the point is not on an item
+	 */
+	private int getShopItemAt(Point p) {
+		int localX = p.x - getShopStartX();
+		int localY = p.y - SHOP_START_Y + shopScrollY;
+		if (localX < 0 || localY < 0)
+			return -1;
+		int columnWidth = SHOP_ITEM_WIDTH + SHOP_H_PADDING;
+		int rowHeight = SHOP_ITEM_HEIGHT + SHOP_V_PADDING;
+		int col = localX / columnWidth;
+		// the gaps between items arent part of any item
+		if (col >= SHOP_COLUMNS || localX % columnWidth >= SHOP_ITEM_WIDTH || localY % rowHeight >= SHOP_ITEM_HEIGHT)
+			return -1;
+		int index = (localY / rowHeight) * SHOP_COLUMNS + col;
+		return index < characterSkins.size() ? index : -1;
 	}
 
 	/**
 	 * draws the tutorial screen with instructions
 	 */
 	private void drawTutorial(Graphics2D g2) {
+		// nothing on the tutorial ever changes
+		tutorialLayer.draw(g2, 0);
+	}
+
+	private void paintTutorialLayer(Graphics2D g2) {
 		// draw background and title
 		g2.setColor(Color.BLACK);
 		g2.fillRect(0, 0, screenWidth, screenHeight);
 		g2.setColor(Color.GREEN);
-		drawCenteredString(g2, "Tutorial", new Font("Monospaced", Font.BOLD, 72), 80);
+		drawCenteredString(g2, "Tutorial", headingFont, 80);
 
 		// draw tutorial text lines
 		g2.setColor(Color.WHITE);
@@ -755,10 +1194,9 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		}
 
 		// draw back button
-		menuButton = new Rectangle((screenWidth - 250) / 2, screenHeight - 100, 250, 50);
 		g2.setColor(Color.WHITE);
-		g2.draw(menuButton);
-		drawCenteredStringInRect(g2, "Main Menu", buttonFont, menuButton);
+		g2.draw(backButton);
+		drawCenteredStringInRect(g2, "Main Menu", buttonFont, backButton);
 	}
 
 	/**
@@ -767,13 +1205,18 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	private void drawGameOver(Graphics2D g2) {
 		// draw the final game state in the background
 		drawInGame(g2);
+		// draw the dark overlay text and buttons
+		gameOverLayer.draw(g2, 0);
+	}
+
+	private void paintGameOverLayer(Graphics2D g2) {
 		// draw a dark overlay
-		g2.setColor(new Color(0, 0, 0, 150));
+		g2.setColor(DIM_COLOR);
 		g2.fillRect(0, 0, screenWidth, screenHeight);
 
 		// draw game over text
 		g2.setColor(Color.RED);
-		drawCenteredString(g2, "Mission Failed", new Font("Monospaced", Font.BOLD, 72), 200);
+		drawCenteredString(g2, "Mission Failed", headingFont, 200);
 
 		// draw retry and menu buttons
 		g2.setFont(buttonFont);
@@ -801,66 +1244,129 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	private void drawLevelWon(Graphics2D g2) {
 		// draw final game state in background
 		drawInGame(g2);
+		// draw the dark overlay text and button
+		levelWonLayer.draw(g2, 0);
+	}
+
+	private void paintLevelWonLayer(Graphics2D g2) {
 		// draw a dark overlay
-		g2.setColor(new Color(0, 0, 0, 150));
+		g2.setColor(DIM_COLOR);
 		g2.fillRect(0, 0, screenWidth, screenHeight);
 
 		// draw level complete text
 		g2.setColor(Color.GREEN);
-		drawCenteredString(g2, "Level Complete!", new Font("Monospaced", Font.BOLD, 72), 200);
+		drawCenteredString(g2, "Level Complete!", headingFont, 200);
 
 		// draw menu button
 		g2.setColor(Color.WHITE);
-		g2.draw(menuButton);
-		drawCenteredStringInRect(g2, "Return to Menu", buttonFont, menuButton);
+		g2.draw(levelWonButton);
+		drawCenteredStringInRect(g2, "Return to Menu", buttonFont, levelWonButton);
 	}
 
 	/**
-	 * draws the main game view including floor player enemies bullets and a camera
+	 * draws the main game view including floor player enemies bullets and a camera.
+	 * everything comes from the latest render snapshot and is blended between the
+	 * last two ticks so movement looks smooth at any frame rate
 	 */
 	private void drawInGame(Graphics2D g2) {
+		RenderSnapshot snap = snapshots.acquire();
 		Graphics2D g2d = (Graphics2D) g2.create();
-
-		// draw background
-		g2d.setColor(Color.BLACK);
-		g2d.fillRect(0, 0, screenWidth, screenHeight);
-		drawBackgroundGrid(g2d);
+		if (!snap.hasWorld()) {
+			gameBackgroundLayer.draw(g2d, 0);
+			g2d.dispose();
+			return;
+		}
+		double alpha = snap.alpha(System.nanoTime());
 
 		// setup camera to follow player
-		g2d.translate(gameAreaX, gameAreaY);
-		int camX = (int) (player.x - gameAreaWidth / 2.0);
-		int camY = (int) (player.y - gameAreaHeight / 2.0);
-		g2d.translate(-camX, -camY);
-
-		// draw all game objects
-		floors.get(currentFloorIndex).draw(g2d, tileSize);
-		player.draw(g2d);
-		for (Bullet bullet : bullets)
-			bullet.draw(g2d);
+		double playerX = RenderSnapshot.lerp(snap.playerPrevX, snap.playerX, alpha);
+		double playerY = RenderSnapshot.lerp(snap.playerPrevY, snap.playerY, alpha);
+		int camX = (int) (playerX - gameAreaWidth / 2.0);
+		int camY = (int) (playerY - gameAreaHeight / 2.0);
+		// the world shows through the whole panel not just the game area so the
+		// view is the panel in world pixels
+		viewport.set(camX - gameAreaX, camY - gameAreaY, screenWidth, screenHeight);
+
+		long sectionStart = System.nanoTime();
+		long floorDone;
+		int enemiesDrawn = 0;
+		int bulletsDrawn;
+		if (softwareRenderer != null) {
+			// write everything into the software frame and show it in one go
+			SoftwareRenderer renderer = softwareRenderer;
+			Graphics2D frame = renderer.begin(g2d);
+			renderer.drawImage(gameBackgroundLayer.getImage(frame, 0), 0, 0);
+			renderer.translate(gameAreaX - camX, gameAreaY - camY);
+			renderer.drawImage(snap.floor.getTileLayer(frame, tileSize), 0, 0);
+			renderer.flush();
+			floorDone = System.nanoTime();
+			for (int i = 0; i < snap.enemyCount; i++) {
+				double x = RenderSnapshot.lerp(snap.enemyPrevX[i], snap.enemyX[i], alpha);
+				double y = RenderSnapshot.lerp(snap.enemyPrevY[i], snap.enemyY[i], alpha);
+				if (!viewport.contains(x, y, ENEMY_DRAW_RADIUS))
+					continue;
+				Enemy.draw(renderer, frame, snap.enemyImage[i], x, y, snap.enemyAngle[i], snap.enemyHealth[i], 32,
+						32);
+				enemiesDrawn++;
+			}
+			if (snap.playerVisible)
+				Player.draw(renderer, frame, snap.playerImage, playerX, playerY, snap.playerAngle, 32, 32);
+			bulletsDrawn = bulletRenderer.draw(renderer, frame, snap, alpha, viewport);
+			renderer.present(g2d);
+		} else {
+			// draw background
+			gameBackgroundLayer.draw(g2d, 0);
+			g2d.translate(gameAreaX - camX, gameAreaY - camY);
+
+			// draw all game objects that can be seen
+			snap.floor.draw(g2d, tileSize, viewport, getRenderScale(paintedQuality));
+			floorDone = System.nanoTime();
+			for (int i = 0; i < snap.enemyCount; i++) {
+				double x = RenderSnapshot.lerp(snap.enemyPrevX[i], snap.enemyX[i], alpha);
+				double y = RenderSnapshot.lerp(snap.enemyPrevY[i], snap.enemyY[i], alpha);
+				if (!viewport.contains(x, y, ENEMY_DRAW_RADIUS))
+					continue;
+				Enemy.draw(g2d, snap.enemyImage[i], x, y, snap.enemyAngle[i], snap.enemyHealth[i], 32, 32);
+				enemiesDrawn++;
+			}
+			if (snap.playerVisible)
+				Player.draw(g2d, snap.playerImage, playerX, playerY, snap.playerAngle, 32, 32);
+			bulletsDrawn = bulletRenderer.draw(g2d, snap, alpha, viewport);
 
-		// move camera back to draw ui
-		g2d.translate(camX, camY);
-		g2d.translate(-gameAreaX, -gameAreaY);
+			// move camera back to draw ui
+			g2d.translate(camX - gameAreaX, camY - gameAreaY);
+		}
+		long entitiesDone = System.nanoTime();
 
 		// draw ui on top of everything
-		drawPlayerUI(g2d);
+		drawPlayerUI(g2d, snap);
+		long hudDone = System.nanoTime();
 		g2d.dispose();
+
+		// hand the timings to the debug hud
+		if (perfOverlay.isVisible()) {
+			perfOverlay.floorDrawTime.record(floorDone - sectionStart);
+			perfOverlay.entityDrawTime.record(entitiesDone - floorDone);
+			perfOverlay.hudDrawTime.record(hudDone - entitiesDone);
+			perfOverlay.setEntityCounts(snap.enemyCount, snap.bulletCount, enemiesDrawn, bulletsDrawn);
+		}
 	}
 
 	/**
-	 * draws a cool retro grid in the background
+	 * draws a cool retro grid on a black background
 	 */
-	private void drawBackgroundGrid(Graphics2D g2) {
+	private void drawBackgroundGrid(Graphics2D g2, Color glowColor) {
 		int gridSize = tileSize > 0 ? tileSize / 2 : 20;
 		if (gridSize <= 0)
 			return;
-		Color glowColor = new Color(255,0,0);;
-		// draw bright red lines if in game other wise cyan lines
-		if(currentState == GameState.MAIN_MENU) {
-			glowColor = new Color(0, 255, 255, 50);
-		}
+		// the game area has black behind the grid
+		g2.setColor(Color.BLACK);
+		g2.fillRect(0, 0, screenWidth, screenHeight);
+		if (!paintedQuality.backgroundGrid)
+			return;
+		// bright red lines in game and faint cyan lines on the menu
 		g2.setColor(glowColor);
-		g2.setStroke(new BasicStroke(1));
+		g2.setStroke(THIN_STROKE);
 		for (int x = 0; x < screenWidth; x += gridSize)
 			g2.drawLine(x, 0, x, screenHeight);
 		for (int y = 0; y < screenHeight; y += gridSize)
@@ -871,7 +1377,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	 * draws the players heads up display health bar ammo count timer and floor
 	 * number
 	 */
-	private void drawPlayerUI(Graphics2D g2) {
+	private void drawPlayerUI(Graphics2D g2, RenderSnapshot snap) {
 		// draw health bar
 		int barWidth = 150, barHeight = 20;
 		int barX = gameAreaX + gameAreaWidth - barWidth - 10;
@@ -879,38 +1385,37 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 
 		g2.setColor(Color.DARK_GRAY);
 		g2.fillRect(barX, barY, barWidth, barHeight);
-		double healthPercentage = (player != null && player.health > 0) ? (double) player.health / player.maxHealth : 0;
+		double healthPercentage = snap.health > 0 ? (double) snap.health / snap.maxHealth : 0;
 		g2.setColor(Color.GREEN);
 		g2.fillRect(barX, barY, (int) (barWidth * healthPercentage), barHeight);
 		g2.setColor(Color.WHITE);
 		g2.drawRect(barX, barY, barWidth, barHeight);
 
-		// draw ammo text
-		g2.setFont(new Font("Monospaced", Font.BOLD, 20));
-		g2.setColor(Color.CYAN);
-		String ammoText = "";
-		if (player != null) {
-			ammoText = "AMMO: " + player.ammo + " / " + player.maxAmmo;
-			if (player.isReloading)
-				ammoText = "RELOADING...";
-			else if (player.ammo == 0)
-				ammoText = "RELOAD! (R)";
+		// draw ammo text. the strings are only built when the numbers change
+		long ammoKey = snap.reloading ? -1 : ((long) snap.ammo << 32) | snap.maxAmmo;
+		if (ammoLabel.changed(ammoKey)) {
+			if (snap.reloading)
+				ammoLabel.setText("RELOADING...");
+			else if (snap.ammo == 0)
+				ammoLabel.setText("RELOAD! (R)");
+			else
+				ammoLabel.setText("AMMO: " + snap.ammo + " / " + snap.maxAmmo);
 		}
-		int textWidth = g2.getFontMetrics().stringWidth(ammoText);
-		g2.drawString(ammoText, gameAreaX + gameAreaWidth - textWidth - 10, barY + 50);
+		ammoLabel.drawRightAligned(g2, gameAreaX + gameAreaWidth - 10, barY + 50);
 
 		// draw timer
-		int minutes = (int) (levelTimeRemaining / 1000) / 60;
-		int seconds = (int) (levelTimeRemaining / 1000) % 60;
-		String timeText = String.format("TIME: %02d:%02d", minutes, seconds);
-		g2.setColor(levelTimeRemaining < 30000 ? Color.RED : Color.ORANGE);
-		drawCenteredString(g2, timeText, buttonFont, 40);
+		long secondsLeft = snap.levelTimeRemaining / 1000;
+		boolean hurry = snap.levelTimeRemaining < 30000;
+		if (timeLabel.changed(secondsLeft * 2 + (hurry ? 1 : 0))) {
+			timeLabel.setText(String.format("TIME: %02d:%02d", (int) secondsLeft / 60, (int) secondsLeft % 60));
+			timeLabel.setColor(hurry ? Color.RED : Color.ORANGE);
+		}
+		timeLabel.drawCentered(g2, 0, screenWidth, 40);
 
 		// draw floor number
-		String floorText = "Floor: " + (currentFloorIndex + 1) + " / " + floors.size();
-		g2.setColor(Color.WHITE);
-		g2.setFont(new Font("Monospaced", Font.BOLD, 20));
-		g2.drawString(floorText, gameAreaX + 10, gameAreaY + 30);
+		if (floorLabel.changed(((long) snap.floorNumber << 32) | snap.floorCount))
+			floorLabel.setText("Floor: " + snap.floorNumber + " / " + snap.floorCount);
+		floorLabel.draw(g2, gameAreaX + 10, gameAreaY + 30);
 	}
 
 	/**
@@ -918,14 +1423,38 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	 */
 	@Override
 	public void keyPressed(KeyEvent e) {
-		// only handle keys if in game and not paused
-		if (currentState == GameState.IN_GAME && !isGamePaused && player != null) {
-			player.keyPressed(e);
-			// if e key is pressed interact
-			if (e.getKeyCode() == KeyEvent.VK_E) {
-				interact();
+		// F3 shows or hides the debug hud on any screen
+		if (e.getKeyCode() == KeyEvent.VK_F3) {
+			perfOverlay.toggle();
+			return;
+		}
+		// F4 goes through the render qualities
+		if (e.getKeyCode() == KeyEvent.VK_F4) {
+			RenderQuality quality = qualityGovernor.getQuality();
+			qualityGovernor.setQuality(quality == RenderQuality.HIGH ? RenderQuality.LOW : quality.higher());
+			wakeGameLoop();
+			return;
+		}
+		// debug keys for the game clock
+		if (debugClock) {
+			switch (e.getKeyCode()) {
+			case KeyEvent.VK_F5 -> clock.setPaused(!clock.isPaused()); // pause or resume
+			case KeyEvent.VK_F6 -> clock.step(); // one tick while paused
+			case KeyEvent.VK_F7 -> clock.setTimeScale(clock.getTimeScale() / 2); // slow motion
+			case KeyEvent.VK_F8 -> clock.setTimeScale(clock.getTimeScale() * 2); // fast forward
 			}
 		}
+		// only handle keys if in game
+		if (currentState != GameState.IN_GAME)
+			return;
+		switch (e.getKeyCode()) {
+		case KeyEvent.VK_A -> inputQueue.push(InputQueue.MOVE_START, Player.Direction.LEFT.ordinal(), 0); // move left
+		case KeyEvent.VK_D -> inputQueue.push(InputQueue.MOVE_START, Player.Direction.RIGHT.ordinal(), 0); // move right
+		case KeyEvent.VK_W -> inputQueue.push(InputQueue.MOVE_START, Player.Direction.UP.ordinal(), 0); // move up
+		case KeyEvent.VK_S -> inputQueue.push(InputQueue.MOVE_START, Player.Direction.DOWN.ordinal(), 0); // move down
+		case KeyEvent.VK_R -> inputQueue.push(InputQueue.RELOAD); // reload gun
+		case KeyEvent.VK_E -> inputQueue.push(InputQueue.INTERACT); // use a computer
+		}
 	}
 
 	/**
@@ -933,9 +1462,14 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 	 */
 	@Override
 	public void keyReleased(KeyEvent e) {
-		// only handle keys if in game and not paused
-		if (currentState == GameState.IN_GAME && !isGamePaused && player != null) {
-			player.keyReleased(e);
+		// only handle keys if in game
+		if (currentState != GameState.IN_GAME)
+			return;
+		switch (e.getKeyCode()) {
+		case KeyEvent.VK_A -> inputQueue.push(InputQueue.MOVE_STOP, Player.Direction.LEFT.ordinal(), 0); // stop moving left
+		case KeyEvent.VK_D -> inputQueue.push(InputQueue.MOVE_STOP, Player.Direction.RIGHT.ordinal(), 0); // stop moving right
+		case KeyEvent.VK_W -> inputQueue.push(InputQueue.MOVE_STOP, Player.Direction.UP.ordinal(), 0); // stop moving up
+		case KeyEvent.VK_S -> inputQueue.push(InputQueue.MOVE_STOP, Player.Direction.DOWN.ordinal(), 0); // stop moving down
 		}
 	}
 
@@ -963,65 +1497,50 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		// if in shop check shop buttons
 		case ITEM_SHOP:
 			
-            for (int i = 0; i < shopItemButtons.size(); i++) {
-                if (shopItemButtons.get(i).contains(p)) {
-                    CharacterSkin clickedSkin = characterSkins.get(i);
-                    // if skin is unlocked equip it
-                    if (clickedSkin.isUnlocked()) {
-                        equippedSkinID = clickedSkin.getId();
-                        saveProgress();
-                    // if have enough coins buy and equip it
-                    } else if (coins >= clickedSkin.getPrice()) {
-                        coins -= clickedSkin.getPrice();
-                        clickedSkin.setUnlocked(true);
-                        equippedSkinID = clickedSkin.getId();
-                        saveProgress();
-                    }
-                    return; // Exit after handling a click
-                }
+            // work out which item was clicked from the grid layout
+            int clickedItem = getShopItemAt(p);
+            if (clickedItem >= 0) {
+                // the game thread equips or buys it
+                inputQueue.push(InputQueue.PICK_SKIN, clickedItem, 0);
+                return; // Exit after handling a click
             }
-            if (menuButton.contains(p)) {
+            if (shopBackButton.contains(p)) {
                 currentState = GameState.MAIN_MENU;
             }
 			break;
 		// if on level select check level buttons
 		case LEVEL_SELECT:
 			for (int i = 0; i < levelButtons.size(); i++) {
-				if (levelButtons.get(i).contains(p) && levels.get(i).isUnlocked()) {
-					startLevel(i + 1);
+				if (levelButtons.get(i).contains(p) && world.getLevel(i + 1).isUnlocked()) {
+					inputQueue.push(InputQueue.START_LEVEL, i + 1, 0);
 					return;
 				}
 			}
-			if (menuButton.contains(p)) {
+			if (backButton.contains(p)) {
 				currentState = GameState.MAIN_MENU;
 			}
 			break;
 		// if game over check buttons
 		case GAME_OVER:
 			if (retryButton.contains(p)) {
-				startLevel(activeLevelNumber);
+				inputQueue.push(InputQueue.START_LEVEL, world.getActiveLevelNumber(), 0);
 			} else if (menuButton.contains(p)) {
 				currentState = GameState.MAIN_MENU;
 			}
 			break;
 		// if level won check button
 		case LEVEL_WON:
-			if (menuButton.contains(p)) {
+			if (levelWonButton.contains(p)) {
 				currentState = GameState.MAIN_MENU;
 			}
 			break;
 		// if in game shoot bullet
 		case IN_GAME:
-			if (!isGamePaused && player != null) {
-				Bullet b = player.shoot();
-				if (b != null) {
-					bullets.add(b);
-				}
-			}
+			inputQueue.push(InputQueue.SHOOT);
 			break;
 		// if on tutorial screen check back button
 		case TUTORIAL:
-			if (menuButton.contains(p)) {
+			if (backButton.contains(p)) {
 				currentState = GameState.MAIN_MENU;
 			}
 			break;
@@ -1045,6 +1564,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		// update mouse position for aiming
 		mouseX = e.getX();
 		mouseY = e.getY();
+		inputQueue.push(InputQueue.AIM, mouseX, mouseY);
 	}
 
 	@Override
@@ -1052,6 +1572,7 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
 		// update mouse position for aiming and button hovering
 		mouseX = e.getX();
 		mouseY = e.getY();
+		inputQueue.push(InputQueue.AIM, mouseX, mouseY);
 	}
 
 	@Override
@@ -1066,16 +1587,12 @@ public class GamePanel extends JPanel implements Runnable, KeyListener, MouseMot
             shopScrollY += e.getWheelRotation() * scrollSpeed;
 
             // calculate the maximum scroll position so we don't scroll past the last item
-            int gridCols = 6;
-            int itemHeight = 180;
-            int vPadding = 20;
-            int startY = 120;
-            int numRows = (characterSkins.size() + gridCols - 1) / gridCols;
+            int numRows = (characterSkins.size() + SHOP_COLUMNS - 1) / SHOP_COLUMNS;
             
             // the total height of all the items in the grid
-            int totalContentHeight = numRows * (itemHeight + vPadding);
+            int totalContentHeight = numRows * (SHOP_ITEM_HEIGHT + SHOP_V_PADDING);
             // the height of the visible area for items
-            int viewableHeight = screenHeight - startY - 100; // Subtract space for title and menu button
+            int viewableHeight = screenHeight - SHOP_START_Y - 100; // Subtract space for title and menu button
             
             int maxScrollY = Math.max(0, totalContentHeight - viewableHeight);
 
@@ -0,0 +1,474 @@
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Random;
+
+// this is the game itself without any windows or drawing. it holds the levels,
+// the floors, the player, enemies, bullets and coins and moves everything forward
+// one tick at a time. the game panel just shows it and feeds it input, and it can
+// also be run on its own with no screen at all (see HeadlessRunner)
+public class GameWorld {
+	// how the current level is going
+	public enum Outcome {
+		NOT_STARTED, PLAYING, LOST, WON
+	}
+
+	// map size in tiles and tile size in pixels
+	private final int cols;
+	private final int rows;
+	private final int tileSize;
+
+	// all levels and how far the player has got
+	private final ArrayList<Level> levels = new ArrayList<>();
+	private int highestLevelUnlocked = 1;
+	private int activeLevelNumber = 1;
+	// money earned
+	private int coins = 0;
+
+	// the level being played
+	private Player player;
+	private final ArrayList<Floor> floors = new ArrayList<>();
+	private int currentFloorIndex = 0;
+	// every bullet in flight. fixed size so firing never makes garbage
+	private static final int MAX_BULLETS = 4096;
+	private final BulletPool bullets = new BulletPool(MAX_BULLETS);
+	// where the enemies on the current floor are. filled every tick before the
+	// bullets move so a bullet only checks the enemies near it
+	private final SpatialGrid enemyGrid;
+	private Outcome outcome = Outcome.NOT_STARTED;
+	// paused while the player is hacking a computer
+	private boolean paused = false;
+
+	// game time. every timer and cooldown in the world reads this clock
+	private final GameClock clock;
+
+	// level timer
+	private long levelTimeRemaining;
+	private long lastSecondUpdateTime;
+	// timer for using teleporters
+	private static final long TELEPORTER_COOLDOWN = 1000;
+	private long lastTeleportTime = -TELEPORTER_COOLDOWN - 1;
+
+	// told whenever coins or unlocked levels change so they can be saved
+	private Runnable progressListener = () -> {
+	};
+
+	/**
+	 * makes a world with its own clock running at 60 ticks per second
+	 * @param cols how many tiles wide each floor is
+	 * @param rows how many tiles tall each floor is
+	 * @param tileSize how big a tile is in pixels
+	 * @param seed used to make the seed of every level
+	 */
+	public GameWorld(int cols, int rows, int tileSize, long seed) {
+		this(cols, rows, tileSize, seed, new GameClock(60));
+	}
+
+	/**
+	 * @param clock the clock that drives every timer in the world
+	 */
+	public GameWorld(int cols, int rows, int tileSize, long seed, GameClock clock) {
+		this.cols = cols;
+		this.rows = rows;
+		this.tileSize = tileSize;
+		this.clock = clock;
+		this.enemyGrid = new SpatialGrid(cols, rows, tileSize);
+		initializeLevels(seed);
+	}
+
+	/**
+	 * creates all the levels in the game each level has a number of floors and a
+	 * time limit
+	 */
+	private void initializeLevels(long seed) {
+		int baseTime = 120;
+		int numFloors = 2;
+		// master random generator for all levels
+		Random seedGenerator = new Random(seed);
+
+		// create 20 levels
+		for (int i = 1; i <= 20; i++) {
+			// every 2 levels add another floor
+			if (i > 1 && (i - 1) % 2 == 0) {
+				numFloors++;
+			}
+			// give each level a unique seed for generation
+			long levelSeed = seedGenerator.nextLong();
+			levels.add(new Level(i, numFloors, baseTime, i <= highestLevelUnlocked, levelSeed));
+		}
+	}
+
+	public void setProgressListener(Runnable listener) {
+		this.progressListener = listener;
+	}
+
+	/**
+	 * unlocks every level up to and including this one. used when loading a save
+	 */
+	public void unlockLevelsUpTo(int levelNumber) {
+		highestLevelUnlocked = Math.max(1, Math.min(levelNumber, levels.size()));
+		for (Level level : levels)
+			level.setUnlocked(level.getLevelNumber() <= highestLevelUnlocked);
+	}
+
+	/**
+	 * sets up and starts a specific level clears old data and creates new floors
+	 * and player
+	 * @param levelNumber which level to play starting at 1
+	 * @param skinPath picture for the player or null for the default one
+	 */
+	public void startLevel(int levelNumber, String skinPath) {
+		activeLevelNumber = levelNumber;
+		Level level = levels.get(levelNumber - 1);
+		// clear old level data
+		floors.clear();
+		bullets.clear();
+		currentFloorIndex = 0;
+		paused = false;
+		// set timer for the level
+		levelTimeRemaining = level.getTimeLimitInSeconds() * 1000L;
+		lastSecondUpdateTime = clock.millis();
+
+		// create all floors for the level
+		for (int i = 0; i < level.getNumberOfFloors(); i++) {
+			long floorSeed = level.getSeed() + i;
+			floors.add(new Floor(cols, rows, i, tileSize, floorSeed));
+		}
+
+		// create a new player at the start position
+		Floor startFloor = floors.get(0);
+		player = new Player(startFloor.getStartX() * tileSize + tileSize / 2.0,
+				startFloor.getStartY() * tileSize + tileSize / 2.0);
+		bullets.setFloor(startFloor, tileSize);
+
+		// load the equipped skin for the player
+		if (skinPath != null)
+			player.loadSkin(skinPath);
+
+		outcome = Outcome.PLAYING;
+	}
+
+	/**
+	 * moves the whole game forward one tick. moves player enemies bullets and
+	 * checks for game over
+	 * @return false if nothing moved because no level is running or the game is paused
+	 */
+	public boolean tick() {
+		// dont update if no level is running or paused
+		if (outcome != Outcome.PLAYING || paused)
+			return false;
+		clock.advance();
+		long now = clock.millis();
+
+		// check for game over condition
+		if (player.health <= 0 || levelTimeRemaining <= 0) {
+			outcome = Outcome.LOST;
+			return false;
+		}
+
+		// update timer every second
+		if (now - lastSecondUpdateTime >= 1000) {
+			levelTimeRemaining -= 1000;
+			lastSecondUpdateTime += 1000;
+		}
+
+		Floor currentFloor = floors.get(currentFloorIndex);
+		// update player
+		player.update(currentFloor, tileSize, now);
+
+		// update all enemies on the current floor
+		Iterator<Enemy> enemyIterator = currentFloor.enemies.iterator();
+		while (enemyIterator.hasNext()) {
+			Enemy enemy = enemyIterator.next();
+			// if enemy is dead remove it and give coins
+			if (enemy.health <= 0) {
+				enemyIterator.remove();
+				coins += 10;
+				progressListener.run();
+				continue;
+			}
+			enemy.update(player, currentFloor, tileSize, bullets, now);
+		}
+
+		// update bullets and check for teleporting
+		updateBullets(currentFloor);
+		teleportPlayer(currentFloor);
+		return true;
+	}
+
+	/**
+	 * checks if player is on a teleporter tile moves player between floors or wins
+	 * the level
+	 */
+	private void teleportPlayer(Floor currentFloor) {
+		int px = (int) (player.x / tileSize);
+		int py = (int) (player.y / tileSize);
+
+		// only teleport if cooldown is over
+		if (clock.millis() - lastTeleportTime > TELEPORTER_COOLDOWN) {
+			// if on an UP teleporter
+			if (currentFloor.getTile(px, py) == Floor.UP) {
+				// cant use if computer isnt hacked
+				if (!currentFloor.isComputerHacked())
+					return;
+
+				// if this is the last floor player wins
+				if (currentFloorIndex == floors.size() - 1) {
+					outcome = Outcome.WON;
+					coins += 20;
+					// unlock next level if this was the latest one
+					if (activeLevelNumber == highestLevelUnlocked && highestLevelUnlocked < levels.size()) {
+						highestLevelUnlocked++;
+						levels.get(highestLevelUnlocked - 1).setUnlocked(true);
+					}
+					progressListener.run();
+					return;
+				}
+
+				// move to the next floor
+				currentFloorIndex++;
+				Floor newFloor = floors.get(currentFloorIndex);
+				player.setPosition(newFloor.getLinkedDownX() * tileSize + tileSize / 2.0,
+						newFloor.getLinkedDownY() * tileSize + tileSize / 2.0);
+				bullets.setFloor(newFloor, tileSize);
+				lastTeleportTime = clock.millis();
+
+				// if on a DOWN teleporter
+			} else if (currentFloor.getTile(px, py) == Floor.DOWN && currentFloorIndex > 0) {
+				// move to the previous floor
+				currentFloorIndex--;
+				Floor newFloor = floors.get(currentFloorIndex);
+				player.setPosition(newFloor.getLinkedUpX() * tileSize + tileSize / 2.0,
+						newFloor.getLinkedUpY() * tileSize + tileSize / 2.0);
+				bullets.setFloor(newFloor, tileSize);
+				lastTeleportTime = clock.millis();
+			}
+		}
+	}
+
+	/**
+	 * updates all bullets moves them and checks for collisions with walls enemies
+	 * or player
+	 */
+	void updateBullets(Floor currentFloor) {
+		ArrayList<Enemy> enemies = currentFloor.enemies;
+		enemyGrid.clear();
+		for (int i = 0; i < enemies.size(); i++) {
+			Enemy enemy = enemies.get(i);
+			enemyGrid.add(i, (int) (enemy.x - enemy.width / 2.0), (int) (enemy.y - enemy.height / 2.0), enemy.width,
+					enemy.height);
+		}
+		int playerLeft = (int) (player.x - player.width / 2.0);
+		int playerTop = (int) (player.y - player.height / 2.0);
+
+		double[] x = bullets.x, y = bullets.y;
+		double[] prevX = bullets.prevX, prevY = bullets.prevY;
+		double[] velocityX = bullets.velocityX, velocityY = bullets.velocityY;
+		double[] wallTime = bullets.wallTime;
+		boolean[] isPlayer = bullets.isPlayer;
+		double half = Bullet.SIZE / 2.0;
+		// a removed bullet is replaced by the last one so i only moves on when
+		// the bullet at i stays
+		int i = 0;
+		while (i < bullets.size()) {
+			// the wall the bullet hits was found when it was fired. this tick it
+			// flies the whole way or just up to the wall
+			boolean hitsWall = wallTime[i] <= 1;
+			double travel = hitsWall ? wallTime[i] : 1;
+			double startX = x[i], startY = y[i];
+			prevX[i] = startX;
+			prevY[i] = startY;
+			x[i] += velocityX[i];
+			y[i] += velocityY[i];
+			wallTime[i] -= 1;
+
+			// check everything the bullet passes over this tick not just where it
+			// ends up so fast bullets cant skip past anything
+			// if its a player bullet check for hitting the enemies near it
+			if (isPlayer[i]) {
+				int hit = enemyGrid.firstAlongPath(startX, startY, velocityX[i], velocityY[i], travel, half, half);
+				if (hit >= 0) {
+					enemies.get(hit).takeDamage(1);
+					bullets.remove(i);
+					continue;
+				}
+				// if its an enemy bullet check for hitting player
+			} else {
+				if (!player.isInvincible && SpatialGrid.sweep(startX, startY, velocityX[i], velocityY[i], travel, half,
+						half, playerLeft, playerTop, player.width, player.height) >= 0) {
+					player.takeDamage(1, clock.millis());
+					bullets.remove(i);
+					continue;
+				}
+			}
+
+			// if bullet hits a wall remove it
+			if (hitsWall) {
+				bullets.remove(i);
+				continue;
+			}
+			i++;
+		}
+	}
+
+	/**
+	 * points the player at an angle in radians
+	 */
+	public void aim(double angle) {
+		if (player != null)
+			player.setFacingAngle(angle);
+	}
+
+	/**
+	 * starts or stops the player moving in a direction
+	 */
+	public void setMoving(Player.Direction direction, boolean moving) {
+		if (player != null && outcome == Outcome.PLAYING && !paused)
+			player.setMoving(direction, moving);
+	}
+
+	/**
+	 * fires a bullet from the player if they can shoot
+	 */
+	public void shoot() {
+		if (player == null || outcome != Outcome.PLAYING || paused)
+			return;
+		player.shoot(bullets);
+	}
+
+	/**
+	 * starts reloading the players gun
+	 */
+	public void reload() {
+		if (player != null && outcome == Outcome.PLAYING && !paused)
+			player.reload(clock.millis());
+	}
+
+	/**
+	 * checks for a computer terminal next to the player. if one can be hacked the
+	 * game pauses until finishHack is called
+	 * @return the floor with the computer to hack or null if there is nothing to
+	 *         hack
+	 */
+	public Floor interact() {
+		if (player == null || outcome != Outcome.PLAYING || paused)
+			return null;
+		int px = (int) (player.x / tileSize);
+		int py = (int) (player.y / tileSize);
+		Floor currentFloor = floors.get(currentFloorIndex);
+
+		// check all tiles around the player
+		for (int i = -1; i <= 1; i++) {
+			for (int j = -1; j <= 1; j++) {
+				if (i == 0 && j == 0)
+					continue;
+
+				// if a computer is found
+				if (currentFloor.getTile(px + i, py + j) == Floor.COMPUTER) {
+					// dont interact if already hacked or on cooldown
+					if (currentFloor.isComputerHacked()
+							|| clock.millis() < currentFloor.getComputerCooldownTime())
+						return null;
+
+					// pause the game while the minigame runs
+					paused = true;
+					return currentFloor;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * called after the hacking minigame is over. unpauses the game
+	 * @param floor the floor returned by interact
+	 * @param win if the player won the minigame
+	 * @param lockOut if losing should lock the computer for a few seconds
+	 */
+	public void finishHack(Floor floor, boolean win, boolean lockOut) {
+		if (win) {
+			floor.setComputerHacked(true);
+			coins += 5;
+			progressListener.run();
+		} else if (lockOut) {
+			floor.setComputerCooldownTime(clock.millis() + 5000);
+		}
+		// unpause the game
+		paused = false;
+	}
+
+	/**
+	 * takes coins away if there are enough
+	 * @return true if the coins were spent
+	 */
+	public boolean spendCoins(int amount) {
+		if (coins < amount)
+			return false;
+		coins -= amount;
+		progressListener.run();
+		return true;
+	}
+
+	public int getCoins() {
+		return coins;
+	}
+
+	public void setCoins(int coins) {
+		this.coins = coins;
+	}
+
+	public ArrayList<Level> getLevels() {
+		return levels;
+	}
+
+	public Level getLevel(int levelNumber) {
+		return levels.get(levelNumber - 1);
+	}
+
+	public int getHighestLevelUnlocked() {
+		return highestLevelUnlocked;
+	}
+
+	public int getActiveLevelNumber() {
+		return activeLevelNumber;
+	}
+
+	public Outcome getOutcome() {
+		return outcome;
+	}
+
+	public boolean isPaused() {
+		return paused;
+	}
+
+	public Player getPlayer() {
+		return player;
+	}
+
+	public ArrayList<Floor> getFloors() {
+		return floors;
+	}
+
+	public Floor getCurrentFloor() {
+		return floors.get(currentFloorIndex);
+	}
+
+	public int getCurrentFloorIndex() {
+		return currentFloorIndex;
+	}
+
+	public BulletPool getBullets() {
+		return bullets;
+	}
+
+	public long getLevelTimeRemaining() {
+		return levelTimeRemaining;
+	}
+
+	public GameClock getClock() {
+		return clock;
+	}
+
+	public int getTileSize() {
+		return tileSize;
+	}
+}
@@ -0,0 +1,66 @@
+import java.util.Random;
+
+// runs the game world with no window as fast as the computer can go. a simple
+// bot walks around shoots enemies and hacks computers so every part of the game
+// rules gets exercised. used for soak tests and rough speed numbers on machines
+// without a screen
+//
+// usage: java -Djava.awt.headless=true HeadlessRunner [ticks] [level] [seed]
+public class HeadlessRunner {
+	public static void main(String[] args) {
+		long ticks = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000L;
+		int levelNumber = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : 42L;
+
+		GameWorld world = new GameWorld(20, 18, 40, seed);
+		world.unlockLevelsUpTo(levelNumber);
+		Random bot = new Random(seed);
+
+		int levelsStarted = 0, levelsWon = 0, levelsLost = 0;
+		world.startLevel(levelNumber, null);
+		levelsStarted++;
+
+		long startTime = System.nanoTime();
+		for (long tick = 0; tick < ticks; tick++) {
+			// start the level again once it ends
+			if (world.getOutcome() != GameWorld.Outcome.PLAYING) {
+				if (world.getOutcome() == GameWorld.Outcome.WON)
+					levelsWon++;
+				else
+					levelsLost++;
+				world.startLevel(levelNumber, null);
+				levelsStarted++;
+			}
+			playBotTurn(world, bot, tick);
+			world.tick();
+		}
+		long elapsed = System.nanoTime() - startTime;
+
+		double seconds = elapsed / 1e9;
+		System.out.printf("%d ticks in %.2f s (%.0f ticks/s, %.1fx real time at 60 Hz)%n", ticks, seconds,
+				ticks / seconds, ticks / seconds / 60.0);
+		System.out.printf("levels started %d, won %d, lost %d, coins %d%n", levelsStarted, levelsWon, levelsLost,
+				world.getCoins());
+		AssetManager assets = AssetManager.getShared();
+		System.out.printf("images read %d in %.1f ms%n", assets.getLoadedCount(), assets.getTotalLoadMillis());
+	}
+
+	/**
+	 * makes up some input for this tick. changes direction now and then, aims and
+	 * shoots at random and hacks any computer it walks past
+	 */
+	private static void playBotTurn(GameWorld world, Random bot, long tick) {
+		if (tick % 30 == 0) {
+			for (Player.Direction direction : Player.Direction.values())
+				world.setMoving(direction, bot.nextInt(3) == 0);
+		}
+		world.aim(bot.nextDouble() * 2 * Math.PI);
+		if (bot.nextInt(20) == 0)
+			world.shoot();
+		if (world.getPlayer().ammo == 0)
+			world.reload();
+		Floor terminal = world.interact();
+		if (terminal != null)
+			world.finishHack(terminal, true, false);
+	}
+}
@@ -0,0 +1,113 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// a fixed size queue of input commands. the swing listeners push commands in
+// from the event thread and the game thread drains them all at the start of a
+// tick, so the game state is only ever changed by the game thread. it never
+// locks and never creates objects: every command is a type, two ints and the
+// time it happened, stored in plain arrays. if the queue is full new commands
+// are dropped
+public class InputQueue {
+	// command types
+	public static final int MOVE_START = 1; // a = Player.Direction ordinal
+	public static final int MOVE_STOP = 2; // a = Player.Direction ordinal
+	public static final int AIM = 3; // a = mouse x, b = mouse y
+	public static final int SHOOT = 4;
+	public static final int RELOAD = 5;
+	public static final int INTERACT = 6;
+	public static final int HACK_DONE = 7; // a = 1 if won, b = 1 if losing locks the computer
+	public static final int START_LEVEL = 8; // a = level number
+	public static final int PICK_SKIN = 9; // a = index of the skin clicked in the shop
+
+	// gets each command when the queue is drained
+	public interface Handler {
+		void handle(int type, int a, int b, long timeNanos);
+	}
+
+	private final int mask;
+	private final int[] types;
+	private final int[] argA;
+	private final int[] argB;
+	private final long[] times;
+	// tells each slot whose turn it is. a slot is ready to read when its value is
+	// one more than the position being read, and ready to write when it equals
+	// the position being written
+	private final AtomicLongArray sequence;
+	// next position to write. shared by all producers
+	private final AtomicLong tail = new AtomicLong();
+	// next position to read. only touched by the game thread
+	private long head = 0;
+
+	/**
+	 * @param capacity how many commands can wait at once. rounded up to a power of 2
+	 */
+	public InputQueue(int capacity) {
+		int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+		mask = size - 1;
+		types = new int[size];
+		argA = new int[size];
+		argB = new int[size];
+		times = new long[size];
+		sequence = new AtomicLongArray(size);
+		for (int i = 0; i < size; i++)
+			sequence.set(i, i);
+	}
+
+	/**
+	 * adds a command. safe to call from any thread
+	 * @return false if the queue was full and the command was dropped
+	 */
+	public boolean push(int type, int a, int b) {
+		long time = System.nanoTime();
+		long position;
+		int index;
+		while (true) {
+			position = tail.get();
+			index = (int) position & mask;
+			long difference = sequence.get(index) - position;
+			if (difference == 0) {
+				// the slot is free. try to claim it
+				if (tail.compareAndSet(position, position + 1))
+					break;
+			} else if (difference < 0) {
+				// the reader hasnt caught up so the queue is full
+				return false;
+			}
+			// another thread got this slot first so try again
+		}
+		types[index] = type;
+		argA[index] = a;
+		argB[index] = b;
+		times[index] = time;
+		// let the reader see the slot
+		sequence.lazySet(index, position + 1);
+		return true;
+	}
+
+	public boolean push(int type) {
+		return push(type, 0, 0);
+	}
+
+	/**
+	 * hands every waiting command to the handler in the order they were pushed.
+	 * must only be called from one thread
+	 * @return how many commands were handled
+	 */
+	public int drain(Handler handler) {
+		int count = 0;
+		while (true) {
+			int index = (int) head & mask;
+			if (sequence.get(index) != head + 1)
+				return count;
+			int type = types[index];
+			int a = argA[index];
+			int b = argB[index];
+			long time = times[index];
+			// give the slot back to the writers for the next lap
+			sequence.lazySet(index, head + mask + 1);
+			head++;
+			count++;
+			handler.handle(type, a, b, time);
+		}
+	}
+}
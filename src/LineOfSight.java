@@ -0,0 +1,155 @@
+import java.util.Arrays;
+
+// answers "can this tile see that tile" for one floor without walking the line
+// every time. the enemies all ask about the tile the player is on, so answers
+// are kept for one target tile at a time with one slot for each tile asking.
+// the answers are thrown away when the target moves to another tile or the map
+// changes, so each enemy tile walks the line at most once for each tile the
+// player stands on no matter how often it asks. by default the answers are the
+// same as Floor.hasLineOfSight which walks the line from the asking tile. with
+// shadowcasting every tile the target can see is found in one go when the
+// target moves, so every question is just one array read. near corners
+// shadowcasting doesnt always agree with walking the line so it is off by default
+//
+// settings (system properties):
+//   byterunner.shadowcastSight  find visible tiles by shadowcasting (default false)
+public class LineOfSight {
+	// how to turn the one octant shadowcasting works on into each of the eight
+	private static final int[][] OCTANTS = {
+			{ 1, 0, 0, -1, -1, 0, 0, 1 },
+			{ 0, 1, -1, 0, 0, -1, 1, 0 },
+			{ 0, 1, 1, 0, 0, -1, -1, 0 },
+			{ 1, 0, 0, 1, -1, 0, 0, -1 } };
+
+	private final Floor floor;
+	private final int width, height;
+	private final boolean shadowcast;
+
+	// the tile the kept answers look at or -1 when nothing is kept
+	private int targetX = -1, targetY = -1;
+	// a slot only holds an answer if it was written in the current round
+	private final int[] answeredRound;
+	private final boolean[] visible;
+	private int round;
+
+	public LineOfSight(Floor floor, int width, int height) {
+		this(floor, width, height, Boolean.getBoolean("byterunner.shadowcastSight"));
+	}
+
+	/**
+	 * @param shadowcast find every visible tile at once instead of walking lines
+	 */
+	public LineOfSight(Floor floor, int width, int height, boolean shadowcast) {
+		this.floor = floor;
+		this.width = width;
+		this.height = height;
+		this.shadowcast = shadowcast;
+		answeredRound = new int[width * height];
+		visible = new boolean[width * height];
+	}
+
+	/**
+	 * checks if there is line of sight between two tiles. asking about the same
+	 * target tile again is one array read
+	 */
+	public boolean canSee(int fromX, int fromY, int toX, int toY) {
+		if (fromX < 0 || fromY < 0 || fromX >= width || fromY >= height)
+			return false;
+		// off the map counts as a wall and walls cant be seen
+		if (toX < 0 || toY < 0 || toX >= width || toY >= height)
+			return false;
+		if (toX != targetX || toY != targetY)
+			lookAt(toX, toY);
+		int i = fromY * width + fromX;
+		if (answeredRound[i] != round) {
+			// shadowcasting already marked every tile that can see the target
+			if (shadowcast)
+				return false;
+			visible[i] = floor.hasLineOfSight(fromX, fromY, toX, toY);
+			answeredRound[i] = round;
+		}
+		return visible[i];
+	}
+
+	/**
+	 * forgets every kept answer. called when the map changes
+	 */
+	public void clear() {
+		targetX = -1;
+		targetY = -1;
+		nextRound();
+	}
+
+	private void lookAt(int x, int y) {
+		targetX = x;
+		targetY = y;
+		nextRound();
+		if (!shadowcast || floor.getTile(x, y) == Floor.WALL)
+			return;
+		mark(x, y);
+		int radius = Math.max(width, height);
+		for (int[] o : OCTANTS) {
+			castLight(x, y, 1, 1.0, 0.0, radius, o[0], o[1], o[2], o[3]);
+			castLight(x, y, 1, 1.0, 0.0, radius, o[4], o[5], o[6], o[7]);
+		}
+	}
+
+	private void nextRound() {
+		// starting over from 1 means old stamps could match again so wipe them
+		if (++round == 0) {
+			Arrays.fill(answeredRound, 0);
+			round = 1;
+		}
+	}
+
+	/**
+	 * recursive shadowcasting over one octant. goes out row by row keeping the
+	 * slopes that are still lit and starts a new scan past each run of walls
+	 */
+	private void castLight(int centerX, int centerY, int row, double start, double end, int radius, int xx, int xy,
+			int yx, int yy) {
+		if (start < end)
+			return;
+		double newStart = 0;
+		for (int distance = row; distance <= radius; distance++) {
+			boolean blocked = false;
+			int dy = -distance;
+			for (int dx = -distance; dx <= 0; dx++) {
+				// slopes of the edges of this tile
+				double leftSlope = (dx - 0.5) / (dy + 0.5);
+				double rightSlope = (dx + 0.5) / (dy - 0.5);
+				if (start < rightSlope)
+					continue;
+				if (end > leftSlope)
+					break;
+				int x = centerX + dx * xx + dy * xy;
+				int y = centerY + dx * yx + dy * yy;
+				boolean wall = floor.getTile(x, y) == Floor.WALL;
+				if (!wall)
+					mark(x, y);
+				if (blocked) {
+					if (wall) {
+						newStart = rightSlope;
+					} else {
+						blocked = false;
+						start = newStart;
+					}
+				} else if (wall && distance < radius) {
+					blocked = true;
+					castLight(centerX, centerY, distance + 1, start, leftSlope, radius, xx, xy, yx, yy);
+					newStart = rightSlope;
+				}
+			}
+			if (blocked)
+				break;
+		}
+	}
+
+	private void mark(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height)
+			return;
+		int i = y * width + x;
+		answeredRound[i] = round;
+		visible[i] = true;
+	}
+}
@@ -0,0 +1,326 @@
+import java.util.Arrays;
+
+// a small map of a floor for getting around it. the floor is cut into square
+// sectors and every patch of connected open tiles inside a sector is one node,
+// so a node is a bit of room or corridor that can be crossed without leaving
+// it. each node has a waypoint on its open tile nearest its middle, and two
+// nodes are linked when their tiles touch. when the graph is built it works out
+// inside every node which tile to step to next to reach each linked node or the
+// waypoint. room for a route between every two nodes is made when the graph is
+// built, and the first time a node is headed for the next node on the route
+// through the fewest nodes from every other node is filled in. following a
+// route is then just a few array reads and makes no garbage. built once when
+// the floor is generated
+public class NavGraph {
+	// tiles on each side of a sector
+	private static final int SECTOR_SIZE = 4;
+	// the four straight neighbours
+	private static final int[] STEP_X = { 1, -1, 0, 0 };
+	private static final int[] STEP_Y = { 0, 0, 1, -1 };
+
+	private final Floor floor;
+	private final int width, height;
+
+	// the node each tile is in or -1 for tiles that cant be walked on
+	private final int[] tileNode;
+	// where each tile is in its nodes list of tiles
+	private final int[] tileSlot;
+	// tiles waiting to be looked at while building
+	private final int[] queue;
+	// more room used while building, made once so building again makes less garbage
+	private final int[] starts;
+	private final long[] links;
+	private final boolean[] reached;
+	private int nodeCount;
+	// the tiles of each node are nodeTiles[nodeTileStart[node]] up to the next
+	// nodes start
+	private int[] nodeTileStart = new int[1];
+	private final int[] nodeTiles;
+	// where each nodes waypoint is in tiles
+	private int[] waypointX = new int[0], waypointY = new int[0];
+	// the nodes linked to each node are linkTo[linkStart[node]] up to the next
+	// nodes start
+	private int[] linkStart = new int[1], linkTo = new int[0];
+	// the next node on the way from one node to another or -1 if there is no
+	// way. indexed by to * nodeCount + from and only filled in for the nodes
+	// that have been headed for
+	private int[] nextNode = new int[0];
+	private boolean[] routesKnown = new boolean[0];
+	// the tile to step to next from every tile of a node. each node has one set
+	// for its waypoint then one for each link, each as big as the node
+	private int[] stepStart = new int[0];
+	private int[] step = new int[0];
+
+	public NavGraph(Floor floor, int width, int height) {
+		this.floor = floor;
+		this.width = width;
+		this.height = height;
+		tileNode = new int[width * height];
+		tileSlot = new int[width * height];
+		nodeTiles = new int[width * height];
+		queue = new int[width * height];
+		starts = new int[width * height + 1];
+		// each tile links at most to the tile right of it and below it, both ways
+		links = new long[width * height * 4];
+		reached = new boolean[width * height];
+	}
+
+	/**
+	 * works out the nodes links and steps from the map as it is now and forgets
+	 * any routes found before
+	 */
+	public void build() {
+		findNodes();
+		placeWaypoints();
+		linkNodes();
+		findSteps();
+		// keep the old table if it is big enough
+		if (nextNode.length < nodeCount * nodeCount)
+			nextNode = new int[nodeCount * nodeCount];
+		if (routesKnown.length < nodeCount)
+			routesKnown = new boolean[nodeCount];
+		Arrays.fill(routesKnown, false);
+	}
+
+	/**
+	 * fills each patch of open tiles without leaving its sector. the tiles of a
+	 * node end up next to each other in nodeTiles
+	 */
+	private void findNodes() {
+		Arrays.fill(tileNode, -1);
+		nodeCount = 0;
+		int tail = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				if (tileNode[y * width + x] >= 0 || !floor.isWalkable(x, y))
+					continue;
+				int node = nodeCount++;
+				int sectorX = x / SECTOR_SIZE, sectorY = y / SECTOR_SIZE;
+				int head = tail;
+				starts[node] = head;
+				tileNode[y * width + x] = node;
+				nodeTiles[tail++] = y * width + x;
+				while (head < tail) {
+					int tile = nodeTiles[head++];
+					int tx = tile % width, ty = tile / width;
+					for (int d = 0; d < 4; d++) {
+						int nx = tx + STEP_X[d], ny = ty + STEP_Y[d];
+						if (!floor.isWalkable(nx, ny) || nx / SECTOR_SIZE != sectorX || ny / SECTOR_SIZE != sectorY)
+							continue;
+						if (tileNode[ny * width + nx] < 0) {
+							tileNode[ny * width + nx] = node;
+							nodeTiles[tail++] = ny * width + nx;
+						}
+					}
+				}
+			}
+		}
+		starts[nodeCount] = tail;
+		nodeTileStart = Arrays.copyOf(starts, nodeCount + 1);
+		for (int node = 0; node < nodeCount; node++) {
+			for (int i = nodeTileStart[node]; i < nodeTileStart[node + 1]; i++)
+				tileSlot[nodeTiles[i]] = i - nodeTileStart[node];
+		}
+	}
+
+	/**
+	 * the waypoint is the nodes own tile closest to its middle so it is always
+	 * somewhere open
+	 */
+	private void placeWaypoints() {
+		waypointX = new int[nodeCount];
+		waypointY = new int[nodeCount];
+		for (int node = 0; node < nodeCount; node++) {
+			int first = nodeTileStart[node], end = nodeTileStart[node + 1];
+			double middleX = 0, middleY = 0;
+			for (int i = first; i < end; i++) {
+				middleX += nodeTiles[i] % width;
+				middleY += nodeTiles[i] / width;
+			}
+			middleX /= end - first;
+			middleY /= end - first;
+			double best = Double.MAX_VALUE;
+			for (int i = first; i < end; i++) {
+				double dx = nodeTiles[i] % width - middleX, dy = nodeTiles[i] / width - middleY;
+				if (dx * dx + dy * dy < best) {
+					best = dx * dx + dy * dy;
+					waypointX[node] = nodeTiles[i] % width;
+					waypointY[node] = nodeTiles[i] / width;
+				}
+			}
+		}
+	}
+
+	/**
+	 * links nodes whose tiles touch. each touching pair goes in both ways and
+	 * repeats are dropped once they are sorted next to each other
+	 */
+	private void linkNodes() {
+		int linkCount = 0;
+		for (int y = 0; y < height; y++) {
+			for (int x = 0; x < width; x++) {
+				int node = tileNode[y * width + x];
+				if (node < 0)
+					continue;
+				int right = x + 1 < width ? tileNode[y * width + x + 1] : -1;
+				int below = y + 1 < height ? tileNode[(y + 1) * width + x] : -1;
+				if (right >= 0 && right != node) {
+					links[linkCount++] = (long) node * nodeCount + right;
+					links[linkCount++] = (long) right * nodeCount + node;
+				}
+				if (below >= 0 && below != node) {
+					links[linkCount++] = (long) node * nodeCount + below;
+					links[linkCount++] = (long) below * nodeCount + node;
+				}
+			}
+		}
+		Arrays.sort(links, 0, linkCount);
+		// links from each node sit together once sorted. the repeats are
+		// squeezed out in place
+		linkStart = new int[nodeCount + 1];
+		int unique = 0;
+		for (int i = 0; i < linkCount; i++) {
+			if (i > 0 && links[i] == links[i - 1])
+				continue;
+			links[unique++] = links[i];
+			linkStart[(int) (links[i] / nodeCount) + 1] = unique;
+		}
+		for (int i = 1; i <= nodeCount; i++)
+			linkStart[i] = Math.max(linkStart[i], linkStart[i - 1]);
+		linkTo = new int[unique];
+		for (int i = 0; i < unique; i++)
+			linkTo[i] = (int) (links[i] % nodeCount);
+	}
+
+	/**
+	 * searches out from a node over the links. whichever node found another one
+	 * first is the next step from that one back towards where the search started
+	 */
+	private void findRoutesTo(int to) {
+		int base = to * nodeCount;
+		Arrays.fill(nextNode, base, base + nodeCount, -1);
+		int head = 0, tail = 0;
+		queue[tail++] = to;
+		while (head < tail) {
+			int node = queue[head++];
+			for (int i = linkStart[node]; i < linkStart[node + 1]; i++) {
+				int other = linkTo[i];
+				if (other != to && nextNode[base + other] < 0) {
+					nextNode[base + other] = node;
+					queue[tail++] = other;
+				}
+			}
+		}
+		routesKnown[to] = true;
+	}
+
+	/**
+	 * inside every node searches out from its waypoint and from the tiles
+	 * touching each linked node, so every tile knows which tile to step to next
+	 */
+	private void findSteps() {
+		stepStart = new int[nodeCount];
+		int total = 0;
+		for (int node = 0; node < nodeCount; node++) {
+			stepStart[node] = total;
+			total += (1 + linkStart[node + 1] - linkStart[node]) * (nodeTileStart[node + 1] - nodeTileStart[node]);
+		}
+		step = new int[total];
+		Arrays.fill(step, -1);
+		for (int node = 0; node < nodeCount; node++) {
+			int first = nodeTileStart[node], size = nodeTileStart[node + 1] - first;
+			int links = linkStart[node + 1] - linkStart[node];
+			for (int set = 0; set <= links; set++) {
+				int base = stepStart[node] + set * size;
+				int head = 0, tail = 0;
+				if (set == 0) {
+					// the waypoint is where this set ends
+					queue[tail++] = waypointY[node] * width + waypointX[node];
+				} else {
+					// tiles touching the linked node step straight into it
+					int other = linkTo[linkStart[node] + set - 1];
+					for (int i = first; i < first + size; i++) {
+						int tile = nodeTiles[i];
+						int tx = tile % width, ty = tile / width;
+						for (int d = 0; d < 4; d++) {
+							int nx = tx + STEP_X[d], ny = ty + STEP_Y[d];
+							if (nodeAt(nx, ny) == other) {
+								step[base + tileSlot[tile]] = ny * width + nx;
+								queue[tail++] = tile;
+								break;
+							}
+						}
+					}
+				}
+				for (int i = 0; i < tail; i++)
+					reached[queue[i]] = true;
+				while (head < tail) {
+					int tile = queue[head++];
+					int tx = tile % width, ty = tile / width;
+					for (int d = 0; d < 4; d++) {
+						int nx = tx + STEP_X[d], ny = ty + STEP_Y[d];
+						if (nodeAt(nx, ny) != node || reached[ny * width + nx])
+							continue;
+						reached[ny * width + nx] = true;
+						step[base + tileSlot[ny * width + nx]] = tile;
+						queue[tail++] = ny * width + nx;
+					}
+				}
+				for (int i = 0; i < tail; i++)
+					reached[queue[i]] = false;
+			}
+		}
+	}
+
+	/**
+	 * @return how many nodes there are
+	 */
+	public int nodeCount() {
+		return nodeCount;
+	}
+
+	/**
+	 * @return the node a tile is in or -1 if it cant be walked on
+	 */
+	public int nodeAt(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height)
+			return -1;
+		return tileNode[y * width + x];
+	}
+
+	/**
+	 * finds the next node on the route between two nodes
+	 * @return the node, the same node if already there or -1 if there is no way
+	 */
+	public int nextNode(int from, int to) {
+		if (from == to)
+			return to;
+		if (!routesKnown[to])
+			findRoutesTo(to);
+		return nextNode[to * nodeCount + from];
+	}
+
+	/**
+	 * finds the next tile to step to on the route from a tile to the waypoint of
+	 * a node
+	 * @return the tile as y * width + x or -1 if already on the waypoint or there
+	 *         is no way
+	 */
+	public int nextTile(int x, int y, int targetNode) {
+		int node = nodeAt(x, y);
+		if (node < 0 || targetNode < 0 || targetNode >= nodeCount)
+			return -1;
+		int next = nextNode(node, targetNode);
+		if (next < 0)
+			return -1;
+		// use the set for the waypoint or for the link to the next node
+		int set = 0;
+		if (next != node) {
+			while (linkTo[linkStart[node] + set] != next)
+				set++;
+			set++;
+		}
+		int size = nodeTileStart[node + 1] - nodeTileStart[node];
+		return step[stepStart[node] + set * size + tileSlot[y * width + x]];
+	}
+}
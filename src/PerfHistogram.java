@@ -0,0 +1,120 @@
+import java.util.Arrays;
+
+// a fixed size histogram of durations. samples are counted into 0.1 ms wide
+// buckets up to 50 ms with one extra bucket for anything slower, so recording
+// never creates objects. once a second the counts are turned into p50 p99 max
+// and average and then cleared, so the numbers always describe the last second.
+// a window that has run its length is also finished when the numbers are read,
+// so they drop to nothing when samples stop coming instead of staying stuck.
+// recording and reading can happen on different threads
+public class PerfHistogram {
+	// width of one bucket and how many there are
+	private static final long BUCKET_NANOS = 100_000;
+	private static final int BUCKETS = 500;
+	// how long one window lasts before the numbers are updated
+	private static final long WINDOW_NANOS = 1_000_000_000L;
+
+	// counts for the window being recorded
+	private final int[] counts = new int[BUCKETS + 1];
+	private int sampleCount;
+	private long totalNanos;
+	private long maxNanos;
+	private long windowStart = System.nanoTime();
+
+	// results from the last finished window in milliseconds
+	private volatile double p50Millis;
+	private volatile double p99Millis;
+	private volatile double maxMillis;
+	private volatile double averageMillis;
+	// how many samples per second the last window had
+	private volatile int ratePerSecond;
+
+	/**
+	 * adds one duration to the histogram
+	 */
+	public synchronized void record(long nanos) {
+		if (nanos < 0)
+			nanos = 0;
+		int bucket = (int) Math.min(BUCKETS, nanos / BUCKET_NANOS);
+		counts[bucket]++;
+		sampleCount++;
+		totalNanos += nanos;
+		if (nanos > maxNanos)
+			maxNanos = nanos;
+
+		long now = System.nanoTime();
+		if (now - windowStart >= WINDOW_NANOS)
+			finishWindow(now);
+	}
+
+	/**
+	 * finishes the window if it is older than its length even though nothing
+	 * was recorded to end it
+	 */
+	private synchronized void finishOldWindow() {
+		long now = System.nanoTime();
+		if (now - windowStart >= WINDOW_NANOS)
+			finishWindow(now);
+	}
+
+	/**
+	 * works out the results for the window that just ended and starts a new one
+	 */
+	private void finishWindow(long now) {
+		double seconds = (now - windowStart) / 1e9;
+		p50Millis = percentileMillis(0.50);
+		p99Millis = percentileMillis(0.99);
+		maxMillis = maxNanos / 1e6;
+		averageMillis = sampleCount > 0 ? totalNanos / 1e6 / sampleCount : 0;
+		ratePerSecond = (int) Math.round(sampleCount / seconds);
+
+		Arrays.fill(counts, 0);
+		sampleCount = 0;
+		totalNanos = 0;
+		maxNanos = 0;
+		windowStart = now;
+	}
+
+	/**
+	 * finds the upper edge of the bucket that holds the given fraction of samples
+	 */
+	private double percentileMillis(double fraction) {
+		if (sampleCount == 0)
+			return 0;
+		int target = (int) Math.ceil(sampleCount * fraction);
+		int seen = 0;
+		for (int i = 0; i <= BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= target) {
+				// use the buckets upper edge but never more than the real max
+				return Math.min((i + 1) * BUCKET_NANOS, maxNanos) / 1e6;
+			}
+		}
+		return maxNanos / 1e6;
+	}
+
+	public double getP50Millis() {
+		finishOldWindow();
+		return p50Millis;
+	}
+
+	public double getP99Millis() {
+		finishOldWindow();
+		return p99Millis;
+	}
+
+	public double getMaxMillis() {
+		finishOldWindow();
+		return maxMillis;
+	}
+
+	public double getAverageMillis() {
+		finishOldWindow();
+		return averageMillis;
+	}
+
+	public int getRatePerSecond() {
+		finishOldWindow();
+		return ratePerSecond;
+	}
+}
@@ -0,0 +1,194 @@
+import java.awt.*;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+// a debug hud that shows how long each part of the game takes. toggled with F3.
+// timings go into fixed size histograms and the text is only rebuilt once a
+// second, so having it on barely changes what it is measuring
+public class PerfOverlay {
+	// how often the text is rebuilt
+	private static final long REFRESH_NANOS = 1_000_000_000L;
+
+	// time between frames and how long the game update takes
+	final PerfHistogram frameTime = new PerfHistogram();
+	final PerfHistogram updateTime = new PerfHistogram();
+	// how long each part of drawing takes
+	final PerfHistogram floorDrawTime = new PerfHistogram();
+	final PerfHistogram entityDrawTime = new PerfHistogram();
+	final PerfHistogram hudDrawTime = new PerfHistogram();
+
+	// is the overlay showing
+	private volatile boolean visible = false;
+	// when the last frame started
+	private long lastFrameStart = 0;
+
+	// live entity counts from the last drawn frame and how many were on screen
+	private int enemyCount;
+	private int bulletCount;
+	private int enemiesDrawn;
+	private int bulletsDrawn;
+
+	// for heap gc and allocation numbers
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	private final ThreadMXBean threadBean = ManagementFactory.getThreadMXBean();
+	// the threads whose allocations we add up. the game thread and the drawing thread
+	private volatile long updateThreadId = -1;
+	private volatile long drawThreadId = -1;
+	private long lastAllocatedBytes = -1;
+	// the render quality being drawn at and if it changes by itself
+	private volatile RenderQuality renderQuality;
+	private volatile boolean adaptiveQuality;
+	// for how long loading pictures took
+	private final AssetManager assets = AssetManager.getShared();
+	private long lastRefresh = System.nanoTime();
+
+	// text shown on screen. only rebuilt when the numbers refresh
+	private String[] lines = { "collecting..." };
+
+	private final Font font = new Font("Monospaced", Font.PLAIN, 12);
+	private final Color background = new Color(0, 0, 0, 180);
+
+	public boolean isVisible() {
+		return visible;
+	}
+
+	public void toggle() {
+		visible = !visible;
+	}
+
+	/**
+	 * records how long one game update took. called on the game thread
+	 */
+	public void recordUpdate(long nanos) {
+		if (!visible)
+			return;
+		updateThreadId = Thread.currentThread().getId();
+		updateTime.record(nanos);
+	}
+
+	/**
+	 * marks the start of a new frame and records the time since the last one.
+	 * called on the drawing thread
+	 */
+	public void frameStarted(long now) {
+		if (!visible) {
+			lastFrameStart = 0;
+			return;
+		}
+		drawThreadId = Thread.currentThread().getId();
+		if (lastFrameStart != 0)
+			frameTime.record(now - lastFrameStart);
+		lastFrameStart = now;
+	}
+
+	/**
+	 * remembers how many things there were this frame and how many were
+	 * actually drawn
+	 */
+	public void setEntityCounts(int enemies, int bullets, int enemiesDrawn, int bulletsDrawn) {
+		this.enemyCount = enemies;
+		this.bulletCount = bullets;
+		this.enemiesDrawn = enemiesDrawn;
+		this.bulletsDrawn = bulletsDrawn;
+	}
+
+	/**
+	 * remembers the render quality to show it
+	 * @param adaptive true if the quality changes by itself with the frame time
+	 */
+	public void setRenderQuality(RenderQuality quality, boolean adaptive) {
+		this.renderQuality = quality;
+		this.adaptiveQuality = adaptive;
+	}
+
+	/**
+	 * draws the overlay in the top left corner
+	 */
+	public void draw(Graphics2D g2, int x, int y) {
+		if (!visible)
+			return;
+		long now = System.nanoTime();
+		if (now - lastRefresh >= REFRESH_NANOS)
+			refresh(now);
+
+		g2.setFont(font);
+		FontMetrics fm = g2.getFontMetrics();
+		int lineHeight = fm.getHeight();
+		int width = 0;
+		for (String line : lines)
+			width = Math.max(width, fm.stringWidth(line));
+
+		g2.setColor(background);
+		g2.fillRect(x, y, width + 12, lines.length * lineHeight + 8);
+		g2.setColor(Color.GREEN);
+		for (int i = 0; i < lines.length; i++)
+			g2.drawString(lines[i], x + 6, y + 4 + fm.getAscent() + i * lineHeight);
+	}
+
+	/**
+	 * reads all the numbers and rebuilds the text
+	 */
+	private void refresh(long now) {
+		double seconds = (now - lastRefresh) / 1e9;
+		lastRefresh = now;
+
+		// heap
+		Runtime runtime = Runtime.getRuntime();
+		long usedMb = (runtime.totalMemory() - runtime.freeMemory()) >> 20;
+		long maxMb = runtime.maxMemory() >> 20;
+
+		// garbage collections so far
+		long gcCount = 0, gcMillis = 0;
+		for (GarbageCollectorMXBean gc : collectors) {
+			gcCount += Math.max(0, gc.getCollectionCount());
+			gcMillis += Math.max(0, gc.getCollectionTime());
+		}
+
+		// allocation rate of the game and drawing threads
+		String allocText = "n/a";
+		long allocated = allocatedBytes();
+		if (allocated >= 0) {
+			if (lastAllocatedBytes >= 0)
+				allocText = String.format("%.1f MB/s", (allocated - lastAllocatedBytes) / 1e6 / seconds);
+			lastAllocatedBytes = allocated;
+		}
+
+		lines = new String[] {
+				String.format("ticks %3d/s   frames %3d/s", updateTime.getRatePerSecond(), frameTime.getRatePerSecond()),
+				String.format("frame   p50 %5.2f p99 %5.2f max %5.2f", frameTime.getP50Millis(),
+						frameTime.getP99Millis(), frameTime.getMaxMillis()),
+				String.format("update  avg %5.2f p99 %5.2f max %5.2f", updateTime.getAverageMillis(),
+						updateTime.getP99Millis(), updateTime.getMaxMillis()),
+				String.format("floor   avg %5.2f p99 %5.2f max %5.2f", floorDrawTime.getAverageMillis(),
+						floorDrawTime.getP99Millis(), floorDrawTime.getMaxMillis()),
+				String.format("entity  avg %5.2f p99 %5.2f max %5.2f", entityDrawTime.getAverageMillis(),
+						entityDrawTime.getP99Millis(), entityDrawTime.getMaxMillis()),
+				String.format("hud     avg %5.2f p99 %5.2f max %5.2f", hudDrawTime.getAverageMillis(),
+						hudDrawTime.getP99Millis(), hudDrawTime.getMaxMillis()),
+				String.format("enemies %d/%d   bullets %d/%d", enemiesDrawn, enemyCount, bulletsDrawn, bulletCount),
+				String.format("heap %d / %d MB", usedMb, maxMb),
+				String.format("assets %d loaded in %.1f ms", assets.getLoadedCount(), assets.getTotalLoadMillis()),
+				String.format("quality %s%s", renderQuality, adaptiveQuality ? " (auto)" : ""),
+				String.format("gc %d (%d ms)   alloc %s", gcCount, gcMillis, allocText) };
+	}
+
+	/**
+	 * adds up how many bytes the game and drawing threads have allocated
+	 * @return the total or -1 if the jvm cant tell us
+	 */
+	private long allocatedBytes() {
+		if (!(threadBean instanceof com.sun.management.ThreadMXBean sunBean)
+				|| !sunBean.isThreadAllocatedMemoryEnabled())
+			return -1;
+		long total = 0;
+		long updateId = updateThreadId;
+		long drawId = drawThreadId;
+		if (updateId >= 0)
+			total += Math.max(0, sunBean.getThreadAllocatedBytes(updateId));
+		if (drawId >= 0 && drawId != updateId)
+			total += Math.max(0, sunBean.getThreadAllocatedBytes(drawId));
+		return total;
+	}
+}
@@ -1,16 +1,13 @@
-import javax.swing.ImageIcon;
 import java.awt.*;
-import java.awt.event.KeyEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
-import java.io.File;
-import java.io.IOException;
-import javax.imageio.ImageIO;
 
 // this is the player character. the guy u control
 public class Player {
 	// where the player is on the screen
 	public double x, y;
+	// where the player was last tick. used to smooth out drawing between ticks
+	public double prevX, prevY;
 	// how big the player is
 	public int width = 32, height = 32;
 	// how fast the player moves
@@ -56,21 +53,8 @@ public class Player {
 	 * @param imagePath The file path of the image (e.g., "player.png"). where the picture is like "player.png"
 	 */
 	public void loadSkin(String imagePath) {
-		try {
-			// Using getResource is more reliable for finding files, especially in a JAR
-			// this is a good way to find files
-			image = ImageIO.read(getClass().getResource(imagePath));
-		} catch (IOException | IllegalArgumentException e) {
-			//System.err.println("Error loading skin image via getResource: " + imagePath + ". Trying file path...");
-			// Fallback to the original file loading method if getResource fails
-			// if that dont work try this other way
-			try {
-				image = ImageIO.read(new File(imagePath));
-			} catch (IOException ex) {
-				//System.err.println("Fallback file loading also failed for: " + imagePath);
-				// if both ways fail then oh well
-			}
-		}
+		// the asset manager only reads each picture once and shares it
+		image = AssetManager.getShared().getImage(imagePath);
 	}
 
 	/**
@@ -90,15 +74,20 @@ public class Player {
 	 * this is called all the time to update the player. like moving and stuff
 	 * @param floor the floor the player is on
 	 * @param tileSize how big the tiles r
+	 * @param now game clock time in milliseconds
 	 */
-	public void update(Floor floor, int tileSize) {
+	public void update(Floor floor, int tileSize, long now) {
+		// remember where we started this tick
+		prevX = x;
+		prevY = y;
+
 		// if ur invincible check if time is up
-		if (isInvincible && System.currentTimeMillis() - invincibilityStartTime > INVINCIBILITY_DURATION) {
+		if (isInvincible && now - invincibilityStartTime > INVINCIBILITY_DURATION) {
 			isInvincible = false;
 		}
 
 		// if ur reloading check if its done
-		if (isReloading && System.currentTimeMillis() - reloadStartTime > RELOAD_TIME) {
+		if (isReloading && now - reloadStartTime > RELOAD_TIME) {
 			isReloading = false;
 			ammo = maxAmmo; // fill up the ammo
 		}
@@ -149,107 +138,139 @@ public class Player {
 	}
 
 	/**
-	 * makes a new bullet when the player shoots
-	 * @return a new Bullet object or nothing if u cant shoot
+	 * fires a bullet when the player shoots
+	 * @param bullets where the bullet goes
+	 * @return true if a bullet was fired or false if u cant shoot
 	 */
-	public Bullet shoot() {
+	public boolean shoot(BulletPool bullets) {
 		// u can shoot if u have ammo and arent reloading
-		if (ammo > 0 && !isReloading) {
+		if (ammo > 0 && !isReloading && bullets.spawn(x, y, facingAngle, true)) {
 			ammo--; // use one ammo
-			return new Bullet(x, y, facingAngle, true); // make the bullet
+			return true;
 		}
-		return null; // No ammo or is reloading
+		return false; // No ammo or is reloading
 	}
 
 	/**
 	 * starts reloading the gun if u need to
+	 * @param now game clock time in milliseconds
 	 */
-	public void reload() {
+	public void reload(long now) {
 		// only reload if not already reloading and ammo isnt full
 		if (!isReloading && ammo < maxAmmo) {
 			isReloading = true;
-			reloadStartTime = System.currentTimeMillis();
+			reloadStartTime = now;
 		}
 	}
 
 	/**
 	 * this makes the player take damage
 	 * @param amount how much damage to take
+	 * @param now game clock time in milliseconds
 	 */
-	public void takeDamage(int amount) {
+	public void takeDamage(int amount, long now) {
 		// cant take damage if invincible
 		if (!isInvincible) {
 			health -= amount;
 			isInvincible = true; // become invincible for a bit
-			invincibilityStartTime = System.currentTimeMillis();
+			invincibilityStartTime = now;
 			if (health < 0)
 				health = 0; // cant have less than 0 health
 		}
 	}
 
 	/**
-	 * draws the player on the screen
-	 * @param g2 the graphics thing to draw with
+	 * checks if the player should be drawn right now. when invincible the player
+	 * blinks on and off
+	 * @param now game clock time in milliseconds
+	 * @return false if the player is in the off part of the blink
 	 */
-	public void draw(Graphics2D g2) {
-		// if invincible make the player blink
+	public boolean isVisible(long now) {
 		if (isInvincible) {
-			long timeSinceHit = System.currentTimeMillis() - invincibilityStartTime;
+			long timeSinceHit = now - invincibilityStartTime;
 			// this makes it flash on and off
-			if ((timeSinceHit / 250) % 2 == 1)
-				return; // dont draw so it looks like it disappeared
+			return (timeSinceHit / 250) % 2 != 1;
 		}
+		return true;
+	}
+
+	public double getFacingAngle() {
+		return facingAngle;
+	}
 
+	public Image getImage() {
+		return image;
+	}
+
+	/**
+	 * draws the player on the screen
+	 * @param g2 the graphics thing to draw with
+	 * @param image the player picture or null to draw a box
+	 * @param x where to draw the middle of the player
+	 * @param y where to draw the middle of the player
+	 * @param angle what way the player is facing
+	 */
+	public static void draw(Graphics2D g2, Image image, double x, double y, double angle, int width, int height) {
+		if (image != null) {
+			// draw the player picture rotated to face the right way
+			SpriteCache.getShared().draw(g2, image, x, y, angle - Math.toRadians(90), width, height);
+			return;
+		}
 		// save the current screen position and rotation
 		AffineTransform oldTransform = g2.getTransform();
 		g2.translate(x, y); // move to the player's spot
-		g2.rotate(facingAngle - Math.toRadians(90)); // rotate the player to face the right way
+		g2.rotate(angle - Math.toRadians(90)); // rotate the player to face the right way
+		// if there's no picture draw a blue box instead
+		g2.setColor(Color.CYAN);
+		g2.fillRect(-width / 2, -height / 2, width, height);
+		// put the screen back to how it was
+		g2.setTransform(oldTransform);
+	}
 
+	/**
+	 * same as the other draw but into the software renderer
+	 */
+	public static void draw(SoftwareRenderer renderer, Graphics2D target, Image image, double x, double y,
+			double angle, int width, int height) {
 		if (image != null) {
-			// draw the player picture
-			g2.drawImage(image, -width / 2, -height / 2, width, height, null);
-		} else {
-			// if there's no picture draw a blue box instead
-			g2.setColor(Color.CYAN);
-			g2.fillRect(-width / 2, -height / 2, width, height);
+			SpriteCache.getShared().draw(renderer, target, image, x, y, angle - Math.toRadians(90), width, height);
+			return;
 		}
-		// put the screen back to how it was
-		g2.setTransform(oldTransform);
+		// the blue box is turned so java2d draws it after everything before it
+		renderer.flush();
+		target.translate(renderer.getTranslateX(), renderer.getTranslateY());
+		draw(target, null, x, y, angle, width, height);
+		target.translate(-renderer.getTranslateX(), -renderer.getTranslateY());
 	}
 
 	public void setPosition(double x, double y) {
 		this.x = x;
 		this.y = y;
+		// jumping somewhere new shouldnt slide across the screen
+		this.prevX = x;
+		this.prevY = y;
 	}
 
 	public void setFacingAngle(double angle) {
 		this.facingAngle = angle;
 	}
 
-	/**
-	 * when a key is pressed down
-	 * @param e the key event
-	 */
-	public void keyPressed(KeyEvent e) {
-		switch (e.getKeyCode()) {
-		case KeyEvent.VK_A -> movingLeft = true; // move left
-		case KeyEvent.VK_D -> movingRight = true; // move right
-		case KeyEvent.VK_W -> movingUp = true; // move up
-		case KeyEvent.VK_S -> movingDown = true; // move down
-		case KeyEvent.VK_R -> reload(); // reload gun
-		}
+	// directions the player can walk in
+	public enum Direction {
+		LEFT, RIGHT, UP, DOWN
 	}
 
 	/**
-	 * when a key is let go
-	 * @param e the key event
+	 * starts or stops moving in a direction
+	 * @param direction which way
+	 * @param moving true when the key is held down
 	 */
-	public void keyReleased(KeyEvent e) {
-		switch (e.getKeyCode()) {
-		case KeyEvent.VK_A -> movingLeft = false; // stop moving left
-		case KeyEvent.VK_D -> movingRight = false; // stop moving right
-		case KeyEvent.VK_W -> movingUp = false; // stop moving up
-		case KeyEvent.VK_S -> movingDown = false; // stop moving down
+	public void setMoving(Direction direction, boolean moving) {
+		switch (direction) {
+		case LEFT -> movingLeft = moving;
+		case RIGHT -> movingRight = moving;
+		case UP -> movingUp = moving;
+		case DOWN -> movingDown = moving;
 		}
 	}
 
@@ -0,0 +1,101 @@
+// picks the render quality. it can just hold the quality it was given, or when
+// adaptive it watches how long frames take to draw and steps the quality down
+// when they go over budget and back up once there is plenty of time to spare.
+// frames are looked at in windows so one slow frame doesnt change anything, and
+// going back up needs several good windows in a row so it doesnt flip back and
+// forth. it never goes above the quality it was given
+//
+// settings (system properties):
+//   byterunner.quality          low, medium or high (default high)
+//   byterunner.adaptiveQuality  step the quality down under load (default false)
+public class QualityGovernor {
+	// frames in one window
+	private static final int WINDOW_FRAMES = 60;
+	// step down when the average frame uses more than this much of the budget
+	private static final double DOWNGRADE_LOAD = 0.85;
+	// step up when the average frame uses less than this much of the budget
+	private static final double UPGRADE_LOAD = 0.4;
+	// good windows in a row needed before stepping up
+	private static final int UPGRADE_WINDOWS = 3;
+
+	// how long a frame can take to draw
+	private final long budgetNanos;
+	private final boolean adaptive;
+	// the quality being drawn at and the highest it can go
+	private volatile RenderQuality quality;
+	private RenderQuality ceiling;
+
+	// the window being measured
+	private int windowFrames;
+	private long windowNanos;
+	private int goodWindows;
+
+	/**
+	 * @param framesPerSecond the frame rate the budget comes from
+	 */
+	public QualityGovernor(RenderQuality quality, boolean adaptive, int framesPerSecond) {
+		this.quality = quality;
+		this.ceiling = quality;
+		this.adaptive = adaptive;
+		this.budgetNanos = 1_000_000_000L / framesPerSecond;
+	}
+
+	/**
+	 * makes a governor from the system properties
+	 */
+	public static QualityGovernor fromSettings(int framesPerSecond) {
+		return new QualityGovernor(RenderQuality.parse(System.getProperty("byterunner.quality", "high")),
+				Boolean.getBoolean("byterunner.adaptiveQuality"), framesPerSecond);
+	}
+
+	/**
+	 * @return the quality to draw the next frame at
+	 */
+	public RenderQuality getQuality() {
+		return quality;
+	}
+
+	public boolean isAdaptive() {
+		return adaptive;
+	}
+
+	/**
+	 * sets the quality by hand. it is also the highest the governor goes back up to
+	 */
+	public synchronized void setQuality(RenderQuality quality) {
+		this.quality = quality;
+		this.ceiling = quality;
+		resetWindow();
+		goodWindows = 0;
+	}
+
+	/**
+	 * records how long a frame took to draw and changes the quality at the end
+	 * of a window if needed. called on the drawing thread
+	 */
+	public synchronized void frameDrawn(long nanos) {
+		if (!adaptive)
+			return;
+		windowNanos += nanos;
+		if (++windowFrames < WINDOW_FRAMES)
+			return;
+		double load = (double) windowNanos / windowFrames / budgetNanos;
+		resetWindow();
+		if (load > DOWNGRADE_LOAD && quality != RenderQuality.LOW) {
+			quality = quality.lower();
+			goodWindows = 0;
+		} else if (load < UPGRADE_LOAD && quality != ceiling) {
+			if (++goodWindows >= UPGRADE_WINDOWS) {
+				quality = quality.higher();
+				goodWindows = 0;
+			}
+		} else {
+			goodWindows = 0;
+		}
+	}
+
+	private void resetWindow() {
+		windowFrames = 0;
+		windowNanos = 0;
+	}
+}
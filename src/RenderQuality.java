@@ -0,0 +1,68 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+
+// how nice the game looks against how much drawing it costs. high is how the
+// game has always looked. medium turns off antialiasing for shapes and the
+// scanlines. low also drops the background grid, uses nearest neighbour for
+// pictures and draws every frame at half size then stretches it to the window
+public enum RenderQuality {
+	LOW(false, false, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR, false, false, 0.5),
+	MEDIUM(false, true, RenderingHints.VALUE_INTERPOLATION_BILINEAR, true, false, 1.0),
+	HIGH(true, true, RenderingHints.VALUE_INTERPOLATION_BILINEAR, true, true, 1.0);
+
+	// smooth edges on shapes and on text
+	public final boolean antialiasing;
+	public final boolean textAntialiasing;
+	// how pictures are scaled and turned, and how a smaller frame is stretched
+	public final Object interpolation;
+	// the retro grid behind the screens and the old tv lines on the menu
+	public final boolean backgroundGrid;
+	public final boolean scanlines;
+	// how big the frame is drawn compared to the window
+	public final double renderScale;
+
+	RenderQuality(boolean antialiasing, boolean textAntialiasing, Object interpolation, boolean backgroundGrid,
+			boolean scanlines, double renderScale) {
+		this.antialiasing = antialiasing;
+		this.textAntialiasing = textAntialiasing;
+		this.interpolation = interpolation;
+		this.backgroundGrid = backgroundGrid;
+		this.scanlines = scanlines;
+		this.renderScale = renderScale;
+	}
+
+	/**
+	 * sets the drawing hints for this quality on a graphics
+	 */
+	public void apply(Graphics2D g2) {
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				antialiasing ? RenderingHints.VALUE_ANTIALIAS_ON : RenderingHints.VALUE_ANTIALIAS_OFF);
+		// with shape antialiasing on text follows it like it always has
+		g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+				antialiasing ? RenderingHints.VALUE_TEXT_ANTIALIAS_DEFAULT
+						: textAntialiasing ? RenderingHints.VALUE_TEXT_ANTIALIAS_ON
+								: RenderingHints.VALUE_TEXT_ANTIALIAS_OFF);
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+	}
+
+	/**
+	 * @return the next quality down or this one if it is already the lowest
+	 */
+	public RenderQuality lower() {
+		return this == LOW ? LOW : values()[ordinal() - 1];
+	}
+
+	/**
+	 * @return the next quality up or this one if it is already the highest
+	 */
+	public RenderQuality higher() {
+		return this == HIGH ? HIGH : values()[ordinal() + 1];
+	}
+
+	/**
+	 * reads a quality name like "medium"
+	 */
+	public static RenderQuality parse(String name) {
+		return valueOf(name.trim().toUpperCase());
+	}
+}
@@ -0,0 +1,99 @@
+import java.awt.Image;
+import java.util.Arrays;
+
+// a copy of everything needed to draw one tick of the game. the game thread
+// fills it in at the end of a tick and the drawing code only ever reads it, so
+// the two threads never touch the live player enemies or bullets at the same time.
+// snapshots are recycled through SnapshotBuffer so the arrays only grow
+public class RenderSnapshot {
+	// when this snapshot was published and how long a tick is
+	long publishNanos;
+	long tickNanos;
+
+	// the floor being played. only its tiles are read when drawing
+	Floor floor;
+
+	// player position this tick and last tick
+	double playerX, playerY, playerPrevX, playerPrevY;
+	double playerAngle;
+	// false while the player is blinking after being hit
+	boolean playerVisible;
+	Image playerImage;
+
+	// values for the hud
+	int health, maxHealth;
+	int ammo, maxAmmo;
+	boolean reloading;
+	long levelTimeRemaining;
+	int floorNumber, floorCount;
+
+	// enemies on the current floor
+	int enemyCount;
+	double[] enemyX = new double[16], enemyY = new double[16];
+	double[] enemyPrevX = new double[16], enemyPrevY = new double[16];
+	double[] enemyAngle = new double[16];
+	// how full the health bar is or -1 if it should not be drawn
+	double[] enemyHealth = new double[16];
+	Image[] enemyImage = new Image[16];
+
+	// bullets in flight
+	int bulletCount;
+	double[] bulletX = new double[64], bulletY = new double[64];
+	double[] bulletPrevX = new double[64], bulletPrevY = new double[64];
+	boolean[] bulletIsPlayer = new boolean[64];
+
+	/**
+	 * @return true once a game tick has been written into this snapshot
+	 */
+	public boolean hasWorld() {
+		return floor != null;
+	}
+
+	/**
+	 * how far between this tick and the next one we are at the given time. 0 means
+	 * draw the previous positions and 1 means draw the current ones
+	 */
+	public double alpha(long nowNanos) {
+		if (tickNanos <= 0)
+			return 1.0;
+		double a = (double) (nowNanos - publishNanos) / tickNanos;
+		return Math.max(0.0, Math.min(1.0, a));
+	}
+
+	/**
+	 * blends between the previous and current value
+	 */
+	static double lerp(double previous, double current, double alpha) {
+		return previous + (current - previous) * alpha;
+	}
+
+	/**
+	 * makes sure there is room for this many enemies
+	 */
+	void ensureEnemyCapacity(int count) {
+		if (count <= enemyX.length)
+			return;
+		int size = Math.max(count, enemyX.length * 2);
+		enemyX = Arrays.copyOf(enemyX, size);
+		enemyY = Arrays.copyOf(enemyY, size);
+		enemyPrevX = Arrays.copyOf(enemyPrevX, size);
+		enemyPrevY = Arrays.copyOf(enemyPrevY, size);
+		enemyAngle = Arrays.copyOf(enemyAngle, size);
+		enemyHealth = Arrays.copyOf(enemyHealth, size);
+		enemyImage = Arrays.copyOf(enemyImage, size);
+	}
+
+	/**
+	 * makes sure there is room for this many bullets
+	 */
+	void ensureBulletCapacity(int count) {
+		if (count <= bulletX.length)
+			return;
+		int size = Math.max(count, bulletX.length * 2);
+		bulletX = Arrays.copyOf(bulletX, size);
+		bulletY = Arrays.copyOf(bulletY, size);
+		bulletPrevX = Arrays.copyOf(bulletPrevX, size);
+		bulletPrevY = Arrays.copyOf(bulletPrevY, size);
+		bulletIsPlayer = Arrays.copyOf(bulletIsPlayer, size);
+	}
+}
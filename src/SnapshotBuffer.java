@@ -0,0 +1,47 @@
+import java.util.concurrent.atomic.AtomicInteger;
+
+// a triple buffer of render snapshots. the game thread always writes into its
+// own back slot and the drawing thread always reads its own front slot. the
+// middle slot is swapped in and out atomically so neither side ever waits or
+// sees a half written snapshot. only one writer thread and one reader thread
+// may use it at a time
+public class SnapshotBuffer {
+	// set in the middle value when it holds a snapshot the reader has not seen
+	private static final int FRESH = 4;
+	private static final int INDEX_MASK = 3;
+
+	private final RenderSnapshot[] slots = { new RenderSnapshot(), new RenderSnapshot(), new RenderSnapshot() };
+	// index of the middle slot plus the fresh flag
+	private final AtomicInteger middle = new AtomicInteger(1);
+	// only touched by the writer
+	private int back = 0;
+	// only touched by the reader
+	private int front = 2;
+
+	/**
+	 * @return the snapshot the game thread should fill in next
+	 */
+	public RenderSnapshot beginWrite() {
+		return slots[back];
+	}
+
+	/**
+	 * hands the snapshot from beginWrite over to the reader
+	 */
+	public void publish() {
+		int old = middle.getAndSet(back | FRESH);
+		back = old & INDEX_MASK;
+	}
+
+	/**
+	 * @return the newest published snapshot. it stays untouched by the writer
+	 *         until the next call to acquire
+	 */
+	public RenderSnapshot acquire() {
+		if ((middle.get() & FRESH) != 0) {
+			int old = middle.getAndSet(front);
+			front = old & INDEX_MASK;
+		}
+		return slots[front];
+	}
+}
@@ -0,0 +1,292 @@
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.CyclicBarrier;
+
+// draws the game world by writing pixels straight into an int array instead of
+// asking java2d to draw every tile sprite and bullet. drawing calls are only
+// written down in a list, then the whole list is played back at once by walking
+// the pixels with plain loops. the finished frame is put on screen with one
+// drawImage. the playback can split the frame into bands of rows with one thread
+// each, since every band only touches its own rows nothing has to be locked.
+// pictures are blended the same way java2d does it so both ways of drawing give
+// the same pixels
+//
+// settings (system properties):
+//   byterunner.renderer       java2d or software (default java2d)
+//   byterunner.renderThreads  threads filling rows for the software renderer (default 1)
+public class SoftwareRenderer {
+	// kinds of drawing calls in the list
+	private static final int FILL = 0, COPY = 1, BLEND = 2, BLEND_PRE = 3;
+
+	private final int width, height;
+	// the frame and its pixels. one int per pixel as 0xRRGGBB
+	private final BufferedImage frame;
+	private final int[] pixels;
+	// java2d drawing on the frame for the few things that arent in the list
+	private final Graphics2D frameGraphics;
+
+	// added to every position like Graphics2D.translate
+	private int translateX, translateY;
+
+	// the list of drawing calls waiting to be played back
+	private int commandCount;
+	private int[] kind = new int[256];
+	private int[] left = new int[256], top = new int[256];
+	private int[] right = new int[256], bottom = new int[256];
+	// fill color, or the row stride of the picture being copied
+	private int[] value = new int[256];
+	private int[][] source = new int[256][];
+
+	// helper threads for the bands after the first. the thread asking for the
+	// frame draws the first band itself
+	private final Thread[] workers;
+	private final CyclicBarrier start, done;
+
+	/**
+	 * @param threads how many threads fill rows at once. 1 draws on the calling thread
+	 */
+	public SoftwareRenderer(int width, int height, int threads) {
+		this.width = width;
+		this.height = height;
+		frame = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		pixels = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+		frameGraphics = frame.createGraphics();
+
+		int bands = Math.max(1, Math.min(threads, height));
+		workers = new Thread[bands - 1];
+		start = new CyclicBarrier(bands);
+		done = new CyclicBarrier(bands);
+		for (int i = 0; i < workers.length; i++) {
+			int band = i + 1;
+			workers[i] = new Thread(() -> workerLoop(band, bands), "Render Worker " + band);
+			workers[i].setDaemon(true);
+			workers[i].start();
+		}
+	}
+
+	/**
+	 * makes the renderer picked with byterunner.renderer or null for java2d
+	 */
+	public static SoftwareRenderer fromSettings(int width, int height) {
+		String renderer = System.getProperty("byterunner.renderer", "java2d");
+		return switch (renderer) {
+		case "software" -> new SoftwareRenderer(width, height, Integer.getInteger("byterunner.renderThreads", 1));
+		case "java2d" -> null;
+		default -> throw new IllegalArgumentException("unknown renderer " + renderer);
+		};
+	}
+
+	/**
+	 * starts a new frame. pictures made for the frame should be made with the
+	 * returned graphics so they come out in a type this renderer can read
+	 * @param screen the screen graphics. its antialiasing setting is copied
+	 */
+	public Graphics2D begin(Graphics2D screen) {
+		commandCount = 0;
+		translateX = 0;
+		translateY = 0;
+		frameGraphics.setRenderingHint(RenderingHints.KEY_ANTIALIASING,
+				screen.getRenderingHint(RenderingHints.KEY_ANTIALIASING));
+		frameGraphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+				screen.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING));
+		return frameGraphics;
+	}
+
+	public void translate(int x, int y) {
+		translateX += x;
+		translateY += y;
+	}
+
+	public int getTranslateX() {
+		return translateX;
+	}
+
+	public int getTranslateY() {
+		return translateY;
+	}
+
+	/**
+	 * fills a rectangle with a solid color like Graphics2D.fillRect
+	 * @param rgb the color as 0xRRGGBB
+	 */
+	public void fillRect(int x, int y, int w, int h, int rgb) {
+		add(FILL, x, y, w, h, rgb & 0xffffff, null);
+	}
+
+	/**
+	 * draws a whole picture with its top left corner at x y. pictures with see
+	 * through parts are blended over what is already there
+	 */
+	public void drawImage(BufferedImage image, int x, int y) {
+		WritableRaster raster = image.getRaster();
+		if (!(raster.getDataBuffer() instanceof DataBufferInt buffer)
+				|| !(raster.getSampleModel() instanceof SinglePixelPackedSampleModel model)
+				|| raster.getSampleModelTranslateX() != 0 || raster.getSampleModelTranslateY() != 0)
+			throw new IllegalArgumentException("image is not a plain int image");
+		int imageKind = switch (image.getType()) {
+		case BufferedImage.TYPE_INT_RGB -> COPY;
+		case BufferedImage.TYPE_INT_ARGB -> BLEND;
+		case BufferedImage.TYPE_INT_ARGB_PRE -> BLEND_PRE;
+		default -> throw new IllegalArgumentException("image type " + image.getType() + " is not supported");
+		};
+		add(imageKind, x, y, image.getWidth(), image.getHeight(), model.getScanlineStride(), buffer.getData());
+	}
+
+	/**
+	 * writes a drawing call into the list cut down to the frame
+	 */
+	private void add(int commandKind, int x, int y, int w, int h, int commandValue, int[] commandSource) {
+		x += translateX;
+		y += translateY;
+		if (w <= 0 || h <= 0 || x >= width || y >= height || x + w <= 0 || y + h <= 0)
+			return;
+		if (commandCount == kind.length)
+			grow();
+		int i = commandCount++;
+		kind[i] = commandKind;
+		left[i] = x;
+		top[i] = y;
+		right[i] = x + w;
+		bottom[i] = y + h;
+		value[i] = commandValue;
+		source[i] = commandSource;
+	}
+
+	private void grow() {
+		int size = kind.length * 2;
+		kind = Arrays.copyOf(kind, size);
+		left = Arrays.copyOf(left, size);
+		top = Arrays.copyOf(top, size);
+		right = Arrays.copyOf(right, size);
+		bottom = Arrays.copyOf(bottom, size);
+		value = Arrays.copyOf(value, size);
+		source = Arrays.copyOf(source, size);
+	}
+
+	/**
+	 * plays back every drawing call in the list into the frame. call before
+	 * drawing on the frame with java2d so things end up in the right order
+	 */
+	public void flush() {
+		if (commandCount == 0)
+			return;
+		if (workers.length == 0) {
+			drawBand(0, height);
+		} else {
+			await(start);
+			drawBand(0, bandEnd(0, workers.length + 1));
+			await(done);
+		}
+		// dont keep pictures alive that the caches have thrown away
+		Arrays.fill(source, 0, commandCount, null);
+		commandCount = 0;
+	}
+
+	/**
+	 * finishes the frame and puts it on screen
+	 */
+	public void present(Graphics2D screen) {
+		flush();
+		screen.drawImage(frame, 0, 0, null);
+	}
+
+	private void workerLoop(int band, int bands) {
+		while (true) {
+			await(start);
+			drawBand(bandEnd(band - 1, bands), bandEnd(band, bands));
+			await(done);
+		}
+	}
+
+	/**
+	 * @return the row just below a band
+	 */
+	private int bandEnd(int band, int bands) {
+		return (int) ((long) height * (band + 1) / bands);
+	}
+
+	private static void await(CyclicBarrier barrier) {
+		try {
+			barrier.await();
+		} catch (InterruptedException | BrokenBarrierException e) {
+			throw new IllegalStateException("render worker stopped", e);
+		}
+	}
+
+	/**
+	 * plays back the whole list into the rows from minY up to maxY
+	 */
+	private void drawBand(int minY, int maxY) {
+		for (int i = 0; i < commandCount; i++) {
+			int x0 = Math.max(0, left[i]), x1 = Math.min(width, right[i]);
+			int y0 = Math.max(minY, top[i]), y1 = Math.min(maxY, bottom[i]);
+			if (x0 >= x1 || y0 >= y1)
+				continue;
+			switch (kind[i]) {
+			case FILL -> fill(x0, y0, x1, y1, value[i]);
+			case COPY -> copy(source[i], value[i], left[i], top[i], x0, y0, x1, y1);
+			case BLEND -> blend(source[i], value[i], left[i], top[i], x0, y0, x1, y1, false);
+			case BLEND_PRE -> blend(source[i], value[i], left[i], top[i], x0, y0, x1, y1, true);
+			}
+		}
+	}
+
+	private void fill(int x0, int y0, int x1, int y1, int rgb) {
+		for (int y = y0; y < y1; y++) {
+			int row = y * width;
+			Arrays.fill(pixels, row + x0, row + x1, rgb);
+		}
+	}
+
+	private void copy(int[] src, int stride, int srcLeft, int srcTop, int x0, int y0, int x1, int y1) {
+		for (int y = y0; y < y1; y++)
+			System.arraycopy(src, (y - srcTop) * stride + x0 - srcLeft, pixels, y * width + x0, x1 - x0);
+	}
+
+	/**
+	 * draws a picture with see through parts over the frame like java2d src over
+	 * @param premultiplied true if the colors are already multiplied by alpha
+	 */
+	private void blend(int[] src, int stride, int srcLeft, int srcTop, int x0, int y0, int x1, int y1,
+			boolean premultiplied) {
+		for (int y = y0; y < y1; y++) {
+			int s = (y - srcTop) * stride + x0 - srcLeft;
+			int d = y * width + x0;
+			for (int x = x0; x < x1; x++, s++, d++) {
+				int argb = src[s];
+				int a = argb >>> 24;
+				if (a == 0)
+					continue;
+				if (a == 0xff) {
+					pixels[d] = argb & 0xffffff;
+					continue;
+				}
+				int dst = pixels[d];
+				int dstF = 0xff - a;
+				int r = (argb >> 16) & 0xff, g = (argb >> 8) & 0xff, b = argb & 0xff;
+				if (!premultiplied) {
+					r = mul8(a, r);
+					g = mul8(a, g);
+					b = mul8(a, b);
+				}
+				r += mul8(dstF, (dst >> 16) & 0xff);
+				g += mul8(dstF, (dst >> 8) & 0xff);
+				b += mul8(dstF, dst & 0xff);
+				pixels[d] = (r << 16) | (g << 8) | b;
+			}
+		}
+	}
+
+	/**
+	 * a times b divided by 255 rounded the same way as the java2d blending tables
+	 */
+	private static int mul8(int a, int b) {
+		return (a * b * 0x10101 + 0x800000) >>> 24;
+	}
+}
@@ -0,0 +1,244 @@
+import java.util.Arrays;
+
+// a grid over the floor with one cell per tile that remembers which entities are
+// in each cell, so collision checks only look at entities close by instead of
+// every entity on the floor. entities are numbered from 0 by whoever fills the
+// grid, usually their index in a list. each entity goes in the cell its middle
+// is in and searches look far enough around to catch entities hanging over
+// into the cells next to them. boxes are whole pixels like java.awt.Rectangle
+// but kept in plain arrays so nothing is made per check. the grid is cleared
+// and filled again every tick
+public class SpatialGrid {
+	private final int cols, rows;
+	private final int cellSize;
+
+	// first entity in each cell or -1. the rest follow through next
+	private final int[] cellHead;
+	private int[] next = new int[64];
+	// each entitys box
+	private int[] left = new int[64], top = new int[64];
+	private int[] width = new int[64], height = new int[64];
+	// one more than the highest entity number added
+	private int count;
+	// the most any entity reaches past the middle of its cell
+	private int maxHalfWidth, maxHalfHeight;
+
+	/**
+	 * @param cols how many cells wide
+	 * @param rows how many cells tall
+	 * @param cellSize how big a cell is in pixels
+	 */
+	public SpatialGrid(int cols, int rows, int cellSize) {
+		if (cols <= 0 || rows <= 0 || cellSize <= 0)
+			throw new IllegalArgumentException("grid size must be positive");
+		this.cols = cols;
+		this.rows = rows;
+		this.cellSize = cellSize;
+		cellHead = new int[cols * rows];
+		Arrays.fill(cellHead, -1);
+	}
+
+	/**
+	 * empties the grid so it can be filled again
+	 */
+	public void clear() {
+		Arrays.fill(cellHead, -1);
+		count = 0;
+		maxHalfWidth = 0;
+		maxHalfHeight = 0;
+	}
+
+	/**
+	 * adds an entity with the given box. entities off the grid go in the
+	 * nearest edge cell
+	 * @param id the entitys number. each number should be added once
+	 */
+	public void add(int id, int boxLeft, int boxTop, int boxWidth, int boxHeight) {
+		if (id >= next.length)
+			grow(Math.max(id + 1, next.length * 2));
+		left[id] = boxLeft;
+		top[id] = boxTop;
+		width[id] = boxWidth;
+		height[id] = boxHeight;
+		count = Math.max(count, id + 1);
+		// reach is measured from the middle to the far edge of the box
+		maxHalfWidth = Math.max(maxHalfWidth, boxWidth - boxWidth / 2);
+		maxHalfHeight = Math.max(maxHalfHeight, boxHeight - boxHeight / 2);
+
+		int cell = cellRow(boxTop + boxHeight / 2) * cols + cellColumn(boxLeft + boxWidth / 2);
+		next[id] = cellHead[cell];
+		cellHead[cell] = id;
+	}
+
+	private void grow(int size) {
+		next = Arrays.copyOf(next, size);
+		left = Arrays.copyOf(left, size);
+		top = Arrays.copyOf(top, size);
+		width = Arrays.copyOf(width, size);
+		height = Arrays.copyOf(height, size);
+	}
+
+	/**
+	 * finds the lowest numbered entity whose box overlaps this box. with list
+	 * indexes as numbers that is the same entity a loop over the list would
+	 * find first
+	 * @return the entity number or -1 if nothing overlaps
+	 */
+	public int firstOverlap(int boxLeft, int boxTop, int boxWidth, int boxHeight) {
+		int found = -1;
+		int firstCol = cellColumn(boxLeft - maxHalfWidth), lastCol = cellColumn(boxLeft + boxWidth + maxHalfWidth);
+		int firstRow = cellRow(boxTop - maxHalfHeight), lastRow = cellRow(boxTop + boxHeight + maxHalfHeight);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				for (int id = cellHead[row * cols + col]; id >= 0; id = next[id]) {
+					if ((found < 0 || id < found)
+							&& overlaps(boxLeft, boxTop, boxWidth, boxHeight, left[id], top[id], width[id], height[id]))
+						found = id;
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * finds the entity a moving box touches first. the box is centred on the
+	 * start point and moves along (moveX, moveY) times a time from 0 to travel
+	 * @param halfWidth half the moving box width
+	 * @return the entity number or -1 if it touches nothing. if two are touched
+	 *         at the same time the lowest number wins
+	 */
+	public int firstAlongPath(double startX, double startY, double moveX, double moveY, double travel,
+			double halfWidth, double halfHeight) {
+		double endX = startX + moveX * travel, endY = startY + moveY * travel;
+		int firstCol = cellColumn((int) Math.floor(Math.min(startX, endX) - halfWidth) - maxHalfWidth);
+		int lastCol = cellColumn((int) Math.ceil(Math.max(startX, endX) + halfWidth) + maxHalfWidth);
+		int firstRow = cellRow((int) Math.floor(Math.min(startY, endY) - halfHeight) - maxHalfHeight);
+		int lastRow = cellRow((int) Math.ceil(Math.max(startY, endY) + halfHeight) + maxHalfHeight);
+		int found = -1;
+		double foundTime = 0;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				for (int id = cellHead[row * cols + col]; id >= 0; id = next[id]) {
+					double time = sweep(startX, startY, moveX, moveY, travel, halfWidth, halfHeight, left[id], top[id],
+							width[id], height[id]);
+					if (time >= 0 && (found < 0 || time < foundTime || (time == foundTime && id < found))) {
+						found = id;
+						foundTime = time;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * finds when a moving box first overlaps a still box. the moving box is
+	 * centred on the start point and moves along (moveX, moveY) times a time from
+	 * 0 to travel. touching edges dont count the same as in overlaps. with no
+	 * travel it just checks if the box overlaps where it starts
+	 * @return the time it first overlaps or -1 if it never does
+	 */
+	public static double sweep(double startX, double startY, double moveX, double moveY, double travel,
+			double halfWidth, double halfHeight, int boxLeft, int boxTop, int boxWidth, int boxHeight) {
+		// grow the still box by the moving box so only the middle point has to be
+		// followed, then cut the path down to the part inside it on each axis
+		double minX = boxLeft - halfWidth, maxX = boxLeft + boxWidth + halfWidth;
+		double minY = boxTop - halfHeight, maxY = boxTop + boxHeight + halfHeight;
+		// a bullet fired into a wall doesnt move but can still hit what it starts on
+		if (travel <= 0)
+			return startX > minX && startX < maxX && startY > minY && startY < maxY ? 0 : -1;
+		double enter = 0, exit = travel;
+		if (moveX == 0) {
+			if (startX <= minX || startX >= maxX)
+				return -1;
+		} else {
+			double t1 = (minX - startX) / moveX, t2 = (maxX - startX) / moveX;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		if (moveY == 0) {
+			if (startY <= minY || startY >= maxY)
+				return -1;
+		} else {
+			double t1 = (minY - startY) / moveY, t2 = (maxY - startY) / moveY;
+			enter = Math.max(enter, Math.min(t1, t2));
+			exit = Math.min(exit, Math.max(t1, t2));
+		}
+		return enter < exit ? enter : -1;
+	}
+
+	/**
+	 * finds every entity whose box overlaps this box
+	 * @param out filled with the entity numbers in no set order
+	 * @return how many were found. only as many as fit in out are written
+	 */
+	public int queryBox(int boxLeft, int boxTop, int boxWidth, int boxHeight, int[] out) {
+		int found = 0;
+		int firstCol = cellColumn(boxLeft - maxHalfWidth), lastCol = cellColumn(boxLeft + boxWidth + maxHalfWidth);
+		int firstRow = cellRow(boxTop - maxHalfHeight), lastRow = cellRow(boxTop + boxHeight + maxHalfHeight);
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				for (int id = cellHead[row * cols + col]; id >= 0; id = next[id]) {
+					if (overlaps(boxLeft, boxTop, boxWidth, boxHeight, left[id], top[id], width[id], height[id])) {
+						if (found < out.length)
+							out[found] = id;
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * finds every entity whose box comes within radius pixels of a point
+	 * @param out filled with the entity numbers in no set order
+	 * @return how many were found. only as many as fit in out are written
+	 */
+	public int queryRadius(double x, double y, double radius, int[] out) {
+		int found = 0;
+		int firstCol = cellColumn((int) Math.floor(x - radius) - maxHalfWidth);
+		int lastCol = cellColumn((int) Math.ceil(x + radius) + maxHalfWidth);
+		int firstRow = cellRow((int) Math.floor(y - radius) - maxHalfHeight);
+		int lastRow = cellRow((int) Math.ceil(y + radius) + maxHalfHeight);
+		double radiusSquared = radius * radius;
+		for (int row = firstRow; row <= lastRow; row++) {
+			for (int col = firstCol; col <= lastCol; col++) {
+				for (int id = cellHead[row * cols + col]; id >= 0; id = next[id]) {
+					// distance from the point to the closest spot in the box
+					double dx = Math.max(Math.max(left[id] - x, 0), x - (left[id] + width[id]));
+					double dy = Math.max(Math.max(top[id] - y, 0), y - (top[id] + height[id]));
+					if (dx * dx + dy * dy <= radiusSquared) {
+						if (found < out.length)
+							out[found] = id;
+						found++;
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	/**
+	 * checks if two boxes overlap the same way Rectangle.intersects does
+	 */
+	public static boolean overlaps(int left1, int top1, int width1, int height1, int left2, int top2, int width2,
+			int height2) {
+		return left1 < left2 + width2 && left2 < left1 + width1 && top1 < top2 + height2 && top2 < top1 + height1;
+	}
+
+	/**
+	 * @return how many entities are in the grid
+	 */
+	public int size() {
+		return count;
+	}
+
+	private int cellColumn(int x) {
+		return Math.max(0, Math.min(cols - 1, Math.floorDiv(x, cellSize)));
+	}
+
+	private int cellRow(int y) {
+		return Math.max(0, Math.min(rows - 1, Math.floorDiv(y, cellSize)));
+	}
+}
@@ -0,0 +1,218 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// keeps sprites already scaled to their size on screen and turned to a fixed
+// number of angles, so drawing a rotated sprite is just copying an image instead
+// of scaling and rotating the full size picture every frame. each angle is only
+// made the first time it is needed. when the cache gets bigger than its limit
+// the sprites that were used least recently are thrown away
+//
+// settings (system properties):
+//   byterunner.spriteAngles   how many angles each sprite is turned to (default 64)
+//   byterunner.spriteCacheMB  how much memory the cache can use, 0 turns it off (default 16)
+public class SpriteCache {
+	private static final SpriteCache SHARED = new SpriteCache(Integer.getInteger("byterunner.spriteAngles", 64),
+			Long.getLong("byterunner.spriteCacheMB", 16L) * 1024 * 1024);
+
+	// how many angles each sprite has
+	private final int angleCount;
+	// most bytes of pixels the cache can hold
+	private final long maxBytes;
+	// bytes of pixels held right now
+	private long usedBytes = 0;
+	// sprites by their source picture. kept in the order they were last used so
+	// the oldest are thrown away first
+	private final LinkedHashMap<Image, Sprite> sprites = new LinkedHashMap<>(16, 0.75f, true);
+
+	// one source picture at one size turned to every angle
+	private static class Sprite {
+		final int width, height;
+		// the rotated images are square and big enough for any angle
+		final int size;
+		final BufferedImage[] angles;
+		// the picture scaled to its size but not rotated
+		BufferedImage scaled;
+
+		Sprite(int width, int height, int angleCount) {
+			this.width = width;
+			this.height = height;
+			this.size = (int) Math.ceil(Math.sqrt(width * width + height * height));
+			this.angles = new BufferedImage[angleCount];
+		}
+	}
+
+	/**
+	 * @param angleCount how many angles to turn each sprite to
+	 * @param maxBytes how much pixel memory the cache can use. 0 turns caching off
+	 */
+	public SpriteCache(int angleCount, long maxBytes) {
+		if (angleCount <= 0)
+			throw new IllegalArgumentException("angle count must be positive");
+		this.angleCount = angleCount;
+		this.maxBytes = maxBytes;
+	}
+
+	/**
+	 * @return the cache shared by all the drawing code
+	 */
+	public static SpriteCache getShared() {
+		return SHARED;
+	}
+
+	/**
+	 * draws a picture scaled to width by height, centered on x y and turned by
+	 * rotation radians
+	 */
+	public synchronized void draw(Graphics2D g2, Image image, double x, double y, double rotation, int width,
+			int height) {
+		BufferedImage rotated = getRotated(g2, image, rotation, width, height);
+		if (rotated == null) {
+			drawTransformed(g2, image, x, y, rotation, width, height);
+			return;
+		}
+		g2.drawImage(rotated, corner(x, rotated), corner(y, rotated), null);
+	}
+
+	/**
+	 * same as the other draw but into the software renderer. the rotated sprite
+	 * is made compatible with the graphics of the renderers frame
+	 */
+	public synchronized void draw(SoftwareRenderer renderer, Graphics2D target, Image image, double x, double y,
+			double rotation, int width, int height) {
+		BufferedImage rotated = getRotated(target, image, rotation, width, height);
+		if (rotated == null) {
+			// draw after everything already waiting in the renderer
+			renderer.flush();
+			target.translate(renderer.getTranslateX(), renderer.getTranslateY());
+			drawTransformed(target, image, x, y, rotation, width, height);
+			target.translate(-renderer.getTranslateX(), -renderer.getTranslateY());
+			return;
+		}
+		renderer.drawImage(rotated, corner(x, rotated), corner(y, rotated));
+	}
+
+	/**
+	 * @return where the square rotated image starts so it is centered on a point
+	 */
+	private static int corner(double center, BufferedImage rotated) {
+		return (int) Math.round(center - rotated.getWidth() / 2.0);
+	}
+
+	/**
+	 * gets a picture scaled and turned to the closest angle, making it if needed.
+	 * the image is square and should be centered where the sprite goes
+	 * @return the rotated image or null if the cache is turned off
+	 */
+	private BufferedImage getRotated(Graphics2D g2, Image image, double rotation, int width, int height) {
+		if (maxBytes <= 0)
+			return null;
+		Sprite sprite = sprites.get(image);
+		if (sprite == null || sprite.width != width || sprite.height != height) {
+			if (sprite != null)
+				remove(image, sprite);
+			sprite = new Sprite(width, height, angleCount);
+			sprites.put(image, sprite);
+		}
+
+		// pick the closest angle
+		int bucket = Math.floorMod((int) Math.round(rotation / (2 * Math.PI) * angleCount), angleCount);
+		BufferedImage rotated = sprite.angles[bucket];
+		if (rotated == null) {
+			rotated = makeRotated(g2, image, sprite, bucket);
+			sprite.angles[bucket] = rotated;
+			usedBytes += bytes(rotated);
+			trim(image);
+		}
+		return rotated;
+	}
+
+	/**
+	 * draws the picture the slow way with a rotated transform. used when the
+	 * cache is turned off
+	 */
+	private static void drawTransformed(Graphics2D g2, Image image, double x, double y, double rotation, int width,
+			int height) {
+		AffineTransform oldTransform = g2.getTransform();
+		g2.translate(x, y);
+		g2.rotate(rotation);
+		g2.drawImage(image, -width / 2, -height / 2, width, height, null);
+		g2.setTransform(oldTransform);
+	}
+
+	/**
+	 * turns the scaled sprite to one of the angles
+	 */
+	private BufferedImage makeRotated(Graphics2D target, Image image, Sprite sprite, int bucket) {
+		if (sprite.scaled == null) {
+			// scale the full size picture down once for every angle to share
+			sprite.scaled = createImage(target, sprite.width, sprite.height);
+			Graphics2D g2 = sprite.scaled.createGraphics();
+			g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			g2.drawImage(image, 0, 0, sprite.width, sprite.height, null);
+			g2.dispose();
+			usedBytes += bytes(sprite.scaled);
+		}
+		BufferedImage rotated = createImage(target, sprite.size, sprite.size);
+		Graphics2D g2 = rotated.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2.translate(sprite.size / 2.0, sprite.size / 2.0);
+		g2.rotate(bucket * 2 * Math.PI / angleCount);
+		g2.drawImage(sprite.scaled, -sprite.width / 2, -sprite.height / 2, null);
+		g2.dispose();
+		return rotated;
+	}
+
+	/**
+	 * makes a see through image that matches the screen so it can be copied fast
+	 */
+	private static BufferedImage createImage(Graphics2D target, int width, int height) {
+		GraphicsConfiguration config = target.getDeviceConfiguration();
+		return config != null ? config.createCompatibleImage(width, height, Transparency.TRANSLUCENT)
+				: new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB_PRE);
+	}
+
+	/**
+	 * throws away the least recently used sprites until the cache fits. never
+	 * throws away the sprite being drawn
+	 */
+	private void trim(Image keep) {
+		Iterator<Map.Entry<Image, Sprite>> it = sprites.entrySet().iterator();
+		while (usedBytes > maxBytes && it.hasNext()) {
+			Map.Entry<Image, Sprite> entry = it.next();
+			if (entry.getKey() == keep)
+				continue;
+			usedBytes -= bytes(entry.getValue());
+			it.remove();
+		}
+	}
+
+	private void remove(Image image, Sprite sprite) {
+		usedBytes -= bytes(sprite);
+		sprites.remove(image);
+	}
+
+	private static long bytes(Sprite sprite) {
+		long total = sprite.scaled != null ? bytes(sprite.scaled) : 0;
+		for (BufferedImage rotated : sprite.angles) {
+			if (rotated != null)
+				total += bytes(rotated);
+		}
+		return total;
+	}
+
+	private static long bytes(BufferedImage image) {
+		return (long) image.getWidth() * image.getHeight() * 4;
+	}
+
+	/**
+	 * @return how many bytes of pixels the cache is holding
+	 */
+	public synchronized long getUsedBytes() {
+		return usedBytes;
+	}
+}
@@ -0,0 +1,157 @@
+import java.awt.*;
+import java.awt.image.BufferedImage;
+
+// a piece of text drawn once into a small image and then copied every frame.
+// the caller gives a number that stands for what the text shows, like the ammo
+// count, and only builds a new string when that number changes, so drawing a
+// label that hasnt changed makes no strings and measures nothing. the text can
+// have a small picture in front of it like a coin
+public class TextLabel {
+	// room around the text for parts of letters that stick out
+	private static final int PAD = 2;
+
+	private final Font font;
+	private Color color;
+	private String text = "";
+	// picture drawn before the text and the space after it
+	private Image icon;
+	private int iconGap;
+
+	// the number the text was last built from
+	private long key;
+	private boolean hasKey = false;
+
+	// the drawn text and its layout. made again when something changes
+	private BufferedImage image;
+	private boolean dirty = true;
+	private int width, height, ascent;
+	// the screen settings the image was made for
+	private Object paintedAntialiasing;
+	private Object paintedTextAntialiasing;
+
+	public TextLabel(Font font, Color color) {
+		this.font = font;
+		this.color = color;
+	}
+
+	public TextLabel(Font font, Color color, String text) {
+		this(font, color);
+		this.text = text;
+	}
+
+	/**
+	 * checks if the value behind the label changed. when it returns true the
+	 * caller should set the new text
+	 * @param key a number that changes whenever the text would
+	 */
+	public boolean changed(long key) {
+		if (hasKey && key == this.key)
+			return false;
+		this.key = key;
+		hasKey = true;
+		return true;
+	}
+
+	public void setText(String text) {
+		if (!text.equals(this.text)) {
+			this.text = text;
+			dirty = true;
+		}
+	}
+
+	public void setColor(Color color) {
+		if (!color.equals(this.color)) {
+			this.color = color;
+			dirty = true;
+		}
+	}
+
+	/**
+	 * puts a picture in front of the text
+	 * @param gap space between the picture and the text
+	 */
+	public void setIcon(Image icon, int gap) {
+		this.icon = icon;
+		this.iconGap = gap;
+		dirty = true;
+	}
+
+	/**
+	 * @return how wide the label is on screen
+	 */
+	public int getWidth(Graphics2D target) {
+		prepare(target);
+		return width;
+	}
+
+	/**
+	 * draws the label like drawString with x on the left and y on the baseline
+	 */
+	public void draw(Graphics2D g2, int x, int y) {
+		prepare(g2);
+		g2.drawImage(image, x - PAD, y - ascent - PAD, null);
+	}
+
+	/**
+	 * draws the label with its right edge at x and y on the baseline
+	 */
+	public void drawRightAligned(Graphics2D g2, int right, int y) {
+		prepare(g2);
+		draw(g2, right - width, y);
+	}
+
+	/**
+	 * draws the label centered across an area with y on the baseline
+	 */
+	public void drawCentered(Graphics2D g2, int left, int areaWidth, int y) {
+		prepare(g2);
+		draw(g2, left + (areaWidth - width) / 2, y);
+	}
+
+	/**
+	 * draws the label in the middle of a rectangle
+	 */
+	public void drawCenteredIn(Graphics2D g2, Rectangle rect) {
+		prepare(g2);
+		draw(g2, rect.x + (rect.width - width) / 2, rect.y + (rect.height - height) / 2 + ascent);
+	}
+
+	/**
+	 * lays out and draws the text again if it or the screen settings changed
+	 */
+	private void prepare(Graphics2D target) {
+		Object antialiasing = target.getRenderingHint(RenderingHints.KEY_ANTIALIASING);
+		Object textAntialiasing = target.getRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING);
+		if (!dirty && image != null && antialiasing == paintedAntialiasing
+				&& textAntialiasing == paintedTextAntialiasing)
+			return;
+		dirty = false;
+		paintedAntialiasing = antialiasing;
+		paintedTextAntialiasing = textAntialiasing;
+
+		// measure with the same settings the screen uses
+		FontMetrics fm = target.getFontMetrics(font);
+		int iconWidth = icon != null ? icon.getWidth(null) + iconGap : 0;
+		width = iconWidth + fm.stringWidth(text);
+		height = fm.getHeight();
+		ascent = fm.getAscent();
+
+		GraphicsConfiguration config = target.getDeviceConfiguration();
+		int imageWidth = Math.max(1, width + PAD * 2);
+		int imageHeight = height + PAD * 2;
+		image = config != null ? config.createCompatibleImage(imageWidth, imageHeight, Transparency.TRANSLUCENT)
+				: new BufferedImage(imageWidth, imageHeight, BufferedImage.TYPE_INT_ARGB_PRE);
+		Graphics2D g2 = image.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, antialiasing);
+		g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, textAntialiasing);
+		if (icon != null) {
+			// sit the picture on the baseline
+			int iconHeight = icon.getHeight(null);
+			g2.drawImage(icon, PAD, PAD + ascent - iconHeight + fm.getDescent() / 2, null);
+		}
+		g2.setFont(font);
+		g2.setColor(color);
+		g2.drawString(text, PAD + iconWidth, PAD + ascent);
+		g2.dispose();
+	}
+}
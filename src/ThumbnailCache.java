@@ -0,0 +1,161 @@
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+
+// small copies of pictures for showing lots of them at once like in the item
+// shop. the first time a picture is asked for it is read and shrunk on a
+// background thread and null is returned so the caller can draw a placeholder.
+// big pictures are read with only every few pixels kept so the full size image
+// never has to sit in memory. only a limited number of thumbnails are kept and
+// the ones used least recently are thrown away first
+public class ThumbnailCache {
+	// size every thumbnail is shrunk to
+	private final int width, height;
+	// most thumbnails to keep at once
+	private final int maxEntries;
+
+	// finished thumbnails in the order they were last used
+	private final LinkedHashMap<String, BufferedImage> thumbnails = new LinkedHashMap<>(16, 0.75f, true);
+	// pictures being read right now
+	private final HashSet<String> pending = new HashSet<>();
+	// pictures that couldnt be read so they are not tried again
+	private final HashSet<String> failed = new HashSet<>();
+	// told when a thumbnail is ready so it can be drawn
+	private volatile Runnable readyListener;
+	// reads pictures in the background so drawing never has to wait
+	private final ExecutorService loader = Executors.newSingleThreadExecutor(runnable -> {
+		Thread thread = new Thread(runnable, "Thumbnail Loader");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	/**
+	 * @param width how wide every thumbnail is
+	 * @param height how tall every thumbnail is
+	 * @param maxEntries how many thumbnails can be kept at once
+	 */
+	public ThumbnailCache(int width, int height, int maxEntries) {
+		this.width = width;
+		this.height = height;
+		this.maxEntries = Math.max(1, maxEntries);
+	}
+
+	/**
+	 * @param listener called on the loader thread each time a thumbnail is ready
+	 */
+	public void setReadyListener(Runnable listener) {
+		this.readyListener = listener;
+	}
+
+	/**
+	 * gets the thumbnail for a picture. starts making it if it isnt ready
+	 * @param path a resource path or a file path like "1.png"
+	 * @return the thumbnail or null if it isnt ready yet or failed to load
+	 */
+	public synchronized Image get(String path) {
+		BufferedImage thumbnail = thumbnails.get(path);
+		if (thumbnail == null && !failed.contains(path) && pending.add(path))
+			loader.execute(() -> load(path));
+		return thumbnail;
+	}
+
+	/**
+	 * reads and shrinks one picture and stores it. runs on the loader thread
+	 */
+	private void load(String path) {
+		BufferedImage thumbnail = null;
+		try {
+			thumbnail = shrink(path);
+		} finally {
+			// whatever happened the picture is no longer being read
+			synchronized (this) {
+				pending.remove(path);
+				if (thumbnail == null) {
+					failed.add(path);
+				} else {
+					thumbnails.put(path, thumbnail);
+					// throw away the oldest thumbnails if there are too many
+					Iterator<Map.Entry<String, BufferedImage>> it = thumbnails.entrySet().iterator();
+					while (thumbnails.size() > maxEntries && it.hasNext()) {
+						it.next();
+						it.remove();
+					}
+				}
+			}
+		}
+		Runnable listener = readyListener;
+		if (listener != null && thumbnail != null)
+			listener.run();
+	}
+
+	/**
+	 * @return the picture shrunk to thumbnail size or null if it couldnt be read
+	 */
+	private BufferedImage shrink(String path) {
+		// if the game already has the full picture just shrink that
+		AssetManager assets = AssetManager.getShared();
+		BufferedImage source = assets.isLoaded(path) ? assets.getImage(path) : readSubsampled(path);
+		if (source == null)
+			return null;
+
+		BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2 = thumbnail.createGraphics();
+		g2.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+		g2.drawImage(source, 0, 0, width, height, null);
+		g2.dispose();
+		return thumbnail;
+	}
+
+	/**
+	 * reads a picture keeping only every few pixels so it is close to thumbnail
+	 * size straight away
+	 * @return the picture or null if it couldnt be read
+	 */
+	private BufferedImage readSubsampled(String path) {
+		try {
+			URL resource = ThumbnailCache.class.getResource(path);
+			Object input = resource != null ? resource.openStream() : new File(path);
+			try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+				if (stream == null)
+					return null;
+				Iterator<ImageReader> readers = ImageIO.getImageReaders(stream);
+				if (!readers.hasNext())
+					return null;
+				ImageReader reader = readers.next();
+				try {
+					reader.setInput(stream, true, true);
+					// keep every nth pixel while staying at least as big as the thumbnail
+					int step = Math.max(1, Math.min(reader.getWidth(0) / width, reader.getHeight(0) / height));
+					ImageReadParam param = reader.getDefaultReadParam();
+					param.setSourceSubsampling(step, step, 0, 0);
+					return reader.read(0, param);
+				} finally {
+					reader.dispose();
+				}
+			} finally {
+				if (input instanceof InputStream in)
+					in.close();
+			}
+		} catch (IOException | RuntimeException e) {
+			// the picture couldnt be read or is broken. the shop keeps showing the
+			// placeholder
+			return null;
+		}
+	}
+}
@@ -0,0 +1,70 @@
+// the part of the world that can be seen this frame, in world pixels. the
+// renderer sets it from the camera once per frame and then asks it whether
+// tiles and entities are worth drawing, so nothing off screen gets drawn
+public class Viewport {
+	// world position of the top left corner and the size of the view
+	private int x, y, width, height;
+
+	/**
+	 * moves the view. called once per frame before anything is drawn
+	 */
+	public void set(int x, int y, int width, int height) {
+		this.x = x;
+		this.y = y;
+		this.width = width;
+		this.height = height;
+	}
+
+	public int getX() {
+		return x;
+	}
+
+	public int getY() {
+		return y;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/**
+	 * checks if something centered at x y that reaches radius pixels in every
+	 * direction could be on screen
+	 */
+	public boolean contains(double centerX, double centerY, double radius) {
+		return centerX + radius >= x && centerX - radius < x + width && centerY + radius >= y
+				&& centerY - radius < y + height;
+	}
+
+	/**
+	 * @return the first tile column that can be seen
+	 */
+	public int firstColumn(int tileSize) {
+		return Math.floorDiv(x, tileSize);
+	}
+
+	/**
+	 * @return the last tile column that can be seen
+	 */
+	public int lastColumn(int tileSize) {
+		return Math.floorDiv(x + width - 1, tileSize);
+	}
+
+	/**
+	 * @return the first tile row that can be seen
+	 */
+	public int firstRow(int tileSize) {
+		return Math.floorDiv(y, tileSize);
+	}
+
+	/**
+	 * @return the last tile row that can be seen
+	 */
+	public int lastRow(int tileSize) {
+		return Math.floorDiv(y + height - 1, tileSize);
+	}
+}